@@ -0,0 +1,143 @@
+package logParser.benchmark;
+
+import logParser.dataModel.RequestEntity;
+import logParser.util.LogDictionary;
+import logParser.util.LogGenerator;
+import logParser.util.LogParser;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Builds the inputs used by the benchmarks with {@link LogGenerator}, so that they never depend on the NASA logs being
+ * downloaded. The zipped files are generated once per number of lines with a fixed seed and kept in
+ * target/benchmark-inputs, so every run measures the same data.
+ */
+final class BenchmarkInputs {
+    private static final Path INPUT_DIRECTORY = Path.of("target", "benchmark-inputs");
+    private static final long SEED = 1995L;
+    private static final int HOSTS = 20000;
+    private static final int RESOURCES = 5000;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Returns a zipped log file with the given number of lines, generating it if it doesn't exist yet
+     * @param lines The number of lines in the file
+     * @return The path of the zipped log file
+     * @throws IOException If the file could not be written
+     */
+    static Path zippedLogs(int lines) throws IOException {
+        return logs(lines, true);
+    }
+
+    /**
+     * Returns an uncompressed log file with the given number of lines, generating it if it doesn't exist yet
+     * @param lines The number of lines in the file
+     * @return The path of the uncompressed log file
+     * @throws IOException If the file could not be written
+     */
+    static Path plainLogs(int lines) throws IOException {
+        return logs(lines, false);
+    }
+
+    private static Path logs(int lines, boolean zipped) throws IOException {
+        Path file = INPUT_DIRECTORY.resolve("access-" + lines + (zipped ? ".log.gz" : ".log"));
+        if (Files.exists(file)) {
+            return file;
+        }
+
+        Files.createDirectories(INPUT_DIRECTORY);
+        Path partial = Files.createTempFile(INPUT_DIRECTORY, "access-" + lines, ".tmp");
+        LogGenerator generator = generator(lines);
+        generator.setZipped(zipped);
+        generator.write(partial);
+        return Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Generates log lines in memory, without zipping them
+     * @param lines The number of lines to generate
+     * @return The generated lines, in order
+     */
+    static String[] plainLines(int lines) {
+        StringWriter writer = new StringWriter();
+        try {
+            generator(lines).write(writer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return writer.toString().split("\n");
+    }
+
+    /**
+     * Parses a generated log file with the given number of lines
+     * @param lines The number of lines in the file
+     * @return A List containing each line as a RequestEntity
+     * @throws IOException If the file could not be generated or read
+     */
+    static List<RequestEntity> requests(int lines) throws IOException {
+        return requests(lines, new LogDictionary());
+    }
+
+    /**
+     * Parses a generated log file with the given number of lines, encoding the requests with the given dictionary
+     * @param lines The number of lines in the file
+     * @param dictionary The dictionary used for encoding the parsed values
+     * @return A List containing each line as a RequestEntity
+     * @throws IOException If the file could not be generated or read
+     */
+    static List<RequestEntity> requests(int lines, LogDictionary dictionary) throws IOException {
+        return parser(LogParser.Engine.SCANNER, 0, dictionary).unZipFile(Files.readAllBytes(zippedLogs(lines)));
+    }
+
+    /**
+     * Creates a LogParser outside of Spring
+     * @param engine The implementation used for parsing a single line
+     * @param parallelism The number of worker threads, 0 for one per available processor
+     * @param dictionary The dictionary used for encoding the parsed values
+     * @return A LogParser with the given settings
+     */
+    static LogParser parser(LogParser.Engine engine, int parallelism, LogDictionary dictionary) {
+        LogParser parser = new LogParser();
+        inject(parser, "engine", engine);
+        inject(parser, "parallelism", parallelism);
+        inject(parser, "dictionary", dictionary);
+        return parser;
+    }
+
+    /**
+     * Sets a field that would have been injected by Spring
+     * @param target The object whose field will be set
+     * @param name The name of the field
+     * @param value The value of the field
+     */
+    static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("No field " + name + " in " + target.getClass().getName());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    /**
+     * The generator for the benchmark inputs, which has no malformed lines, so that the parser doesn't log warnings
+     * while it is being measured
+     */
+    private static LogGenerator generator(int lines) {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(lines);
+        generator.setHosts(HOSTS);
+        generator.setResources(RESOURCES);
+        generator.setMalformedRatio(0);
+        generator.setSeed(SEED);
+        return generator;
+    }
+}
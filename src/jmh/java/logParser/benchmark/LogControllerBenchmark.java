@@ -0,0 +1,67 @@
+package logParser.benchmark;
+
+import logParser.controller.LogController;
+import logParser.controller.ResponseCache;
+import logParser.util.LogDictionary;
+import logParser.util.LogParser;
+import logParser.util.StatisticsAggregator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serving the JSON responses from the published statistics, either from the response cache or, for custom
+ * limits, by building and serializing them on every call
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class LogControllerBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public int lines;
+
+    private LogController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LogDictionary dictionary = new LogDictionary();
+        StatisticsAggregator aggregator = new StatisticsAggregator();
+        BenchmarkInputs.inject(aggregator, "dictionary", dictionary);
+        try (InputStream inputStream = Files.newInputStream(BenchmarkInputs.zippedLogs(lines))) {
+            BenchmarkInputs.parser(LogParser.Engine.SCANNER, 0, dictionary)
+                    .unZipStream(inputStream, aggregator::accept);
+        }
+        aggregator.publish();
+
+        controller = new LogController();
+        BenchmarkInputs.inject(controller, "aggregator", aggregator);
+        BenchmarkInputs.inject(controller, "responseCache", new ResponseCache());
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> logs() {
+        return controller.logs();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> top10Resources() {
+        return controller.getMostRequestedResources(10);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> top100Resources() {
+        return controller.getMostRequestedResources(100);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> top5RequestsForTop10Hosts() {
+        return controller.getFrequentRequestsForFrequentlyAppearingHosts();
+    }
+}
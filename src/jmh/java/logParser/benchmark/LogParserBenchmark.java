@@ -0,0 +1,131 @@
+package logParser.benchmark;
+
+import logParser.dataModel.RequestEntity;
+import logParser.util.LogDictionary;
+import logParser.util.LogParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing, from a single line up to a whole zipped file
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class LogParserBenchmark {
+    private static final int SAMPLE_LINES = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Lines {
+        @Param({"SCANNER", "REGEX"})
+        public LogParser.Engine engine;
+
+        String[] lines;
+        LogParser parser;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            lines = BenchmarkInputs.plainLines(SAMPLE_LINES);
+            parser = BenchmarkInputs.parser(engine, 1, new LogDictionary());
+        }
+    }
+
+    /**
+     * A zipped file that is streamed from disk, so its size is not limited by the heap
+     */
+    @State(Scope.Benchmark)
+    public static class ZippedFile {
+        @Param({"100000", "1000000", "10000000"})
+        public int lines;
+
+        @Param({"1", "0"})
+        public int parallelism;
+
+        Path file;
+        LogParser parser;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = BenchmarkInputs.zippedLogs(lines);
+            parser = BenchmarkInputs.parser(LogParser.Engine.SCANNER, parallelism, new LogDictionary());
+        }
+    }
+
+    /**
+     * A local file, either uncompressed and memory-mapped, or zipped and streamed like ZippedFile
+     */
+    @State(Scope.Benchmark)
+    public static class LocalFile {
+        @Param({"100000", "1000000", "10000000"})
+        public int lines;
+
+        @Param({"true", "false"})
+        public boolean zipped;
+
+        @Param({"1", "0"})
+        public int parallelism;
+
+        Path file;
+        LogParser parser;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = zipped ? BenchmarkInputs.zippedLogs(lines) : BenchmarkInputs.plainLogs(lines);
+            parser = BenchmarkInputs.parser(LogParser.Engine.SCANNER, parallelism, new LogDictionary());
+        }
+    }
+
+    /**
+     * A zipped file that is held in memory, and parsed into a List like the original implementation did
+     */
+    @State(Scope.Benchmark)
+    public static class ZippedBytes {
+        @Param({"100000", "1000000"})
+        public int lines;
+
+        byte[] bytes;
+        LogParser parser;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            bytes = Files.readAllBytes(BenchmarkInputs.zippedLogs(lines));
+            parser = BenchmarkInputs.parser(LogParser.Engine.SCANNER, 1, new LogDictionary());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE_LINES)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void parseEntry(Lines state, Blackhole blackhole) {
+        for (String line : state.lines) {
+            blackhole.consume(state.parser.parseEntry(line));
+        }
+    }
+
+    @Benchmark
+    public long unZipStream(ZippedFile state, Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(state.file))) {
+            return state.parser.unZipStream(inputStream, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public long parseFile(LocalFile state, Blackhole blackhole) throws IOException {
+        return state.parser.parseFile(state.file, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<RequestEntity> unZipFile(ZippedBytes state) {
+        return state.parser.unZipFile(state.bytes);
+    }
+}
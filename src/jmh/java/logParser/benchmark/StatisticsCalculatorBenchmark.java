@@ -0,0 +1,119 @@
+package logParser.benchmark;
+
+import logParser.dataModel.RequestEntity;
+import logParser.domainModel.HostRequests;
+import logParser.domainModel.RequestQuery;
+import logParser.domainModel.StatisticsContainer;
+import logParser.util.LogDictionary;
+import logParser.util.RequestColumns;
+import logParser.util.RequestQueryScanner;
+import logParser.util.StatisticsCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the aggregation of parsed requests, and the selection of the top entries from the aggregated counts
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class StatisticsCalculatorBenchmark {
+    @Param({"100000", "1000000"})
+    public int lines;
+
+    private List<RequestEntity> requests;
+    private RequestColumns columns;
+    private StatisticsContainer statistics;
+    private HashMap<String, HostRequests> requestsPerHost;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LogDictionary dictionary = new LogDictionary();
+        requests = BenchmarkInputs.requests(lines, dictionary);
+        columns = new RequestColumns();
+        BenchmarkInputs.inject(columns, "dictionary", dictionary);
+        columns.appendAll(requests);
+        statistics = StatisticsCalculator.createBaseStatisticsContainer(requests);
+        StatisticsCalculator.calculateRankings(statistics);
+        requestsPerHost = statistics.getRequestsPerHost();
+    }
+
+    @Benchmark
+    public StatisticsContainer createBaseStatisticsContainer() {
+        return StatisticsCalculator.createBaseStatisticsContainer(requests);
+    }
+
+    @Benchmark
+    public StatisticsContainer createBaseStatisticsContainerBoundedDetails() {
+        StatisticsContainer output = new StatisticsContainer(10000);
+        requests.forEach(request -> StatisticsCalculator.addRequest(output, request));
+        return output;
+    }
+
+    @Benchmark
+    public StatisticsContainer createBaseStatisticsContainerFromColumns() {
+        return StatisticsCalculator.createBaseStatisticsContainer(columns);
+    }
+
+    @Benchmark
+    public StatisticsContainer createBaseStatisticsContainerFromColumnsApproximate() {
+        return StatisticsCalculator.createBaseStatisticsContainer(columns, new StatisticsContainer(1000, 100));
+    }
+
+    @Benchmark
+    public RequestQueryScanner.Result executeQuery() {
+        RequestQuery query = new RequestQuery();
+        query.setHost("*.com");
+        query.setMinResponseCode(400);
+        query.setMaxResponseCode(499);
+        query.setGroupBy(RequestQuery.GroupBy.RESOURCE);
+        return RequestQueryScanner.execute(columns, query);
+    }
+
+    @Benchmark
+    public StatisticsContainer calculateRankings() {
+        StatisticsCalculator.calculateRankings(statistics);
+        return statistics;
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> getMostRequestedResources() {
+        return StatisticsCalculator.getMostRequestedResources(statistics.getResourceCallCounter(), 10);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> sortResourcesByFrequency() {
+        return StatisticsCalculator.sortResourcesByFrequency(statistics.getResourceCallCount());
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> getMostFailingResources() {
+        return StatisticsCalculator.getMostFailingResources(statistics.getResourceFailCounter(), 10);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> sortFailedResourcesByFrequency() {
+        return StatisticsCalculator.sortFailedResourcesByFrequency(statistics.getResourceFailCount());
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, HostRequests> getMostFrequentHosts() {
+        return StatisticsCalculator.getMostFrequentHosts(requestsPerHost, 10);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, HostRequests> sortHostsByRequestFrequency() {
+        return StatisticsCalculator.sortHostsByRequestFrequency(requestsPerHost);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, LinkedHashMap<String, Integer>> getFrequentRequestsPerHost() {
+        return StatisticsCalculator.getFrequentRequestsPerHost(statistics.getTop10HostResources());
+    }
+}
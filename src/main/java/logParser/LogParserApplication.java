@@ -1,17 +1,24 @@
 package logParser;
 
 import jakarta.annotation.PostConstruct;
-import logParser.dataModel.RequestEntity;
+import logParser.repository.CheckpointRepository;
+import logParser.repository.RequestBulkRepository;
 import logParser.repository.RequestRepository;
+import logParser.util.LogFollower;
+import logParser.util.LogIngester;
 import logParser.util.LogLoader;
-import logParser.util.LogParser;
+import logParser.util.RequestColumns;
+import logParser.util.StatisticsAggregator;
+import logParser.util.StatisticsCalculator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 
 @SpringBootApplication
 public class LogParserApplication {
@@ -19,27 +26,63 @@ public class LogParserApplication {
     @Autowired
     private LogLoader loader;
     @Autowired
-    private LogParser parser;
+    private LogIngester ingester;
+    @Autowired
+    private LogFollower follower;
     @Autowired
     private RequestRepository requestRepository;
+    @Autowired
+    private RequestBulkRepository requestBulkRepository;
+    @Autowired
+    private CheckpointRepository checkpointRepository;
+    @Autowired
+    private StatisticsAggregator aggregator;
+    @Autowired
+    private RequestColumns columns;
 
     private static final Logger logger = LogManager.getLogger(LogParserApplication.class);
 
     @PostConstruct
     public void initialize() {
-        if (requestRepository.count() == 0) {
+        boolean stored = requestRepository.count() != 0;
+        if (!stored) {
+            checkpointRepository.deleteAll();
+        }
+        if (!stored || checkpointRepository.countByCompleteFalse() != 0) {
+            if (stored) {
+                logger.info("Resuming interrupted ingest, retrieving the requests stored so far from H2 database ...");
+                reload();
+            }
             logger.info("Performing FTP request ...");
-            byte[] ftpResponse = loader.loadLogs();
+            List<Path> logs = loader.retrieveLogs();
             logger.info("FTP request completed");
-            List<RequestEntity> result = parser.unZipFile(ftpResponse);
-            logger.info("FTP response unzipped");
-            logger.info("Storing requests in H2 database ...");
-            requestRepository.saveAll(result);
-            logger.info("Stored {} requests in H2 database", result.size());
+            if (!logs.isEmpty()) {
+                logger.info("Parsing {} log files and storing requests in H2 database ...", logs.size());
+                long start = System.nanoTime();
+                long lines = ingester.ingest(logs);
+                double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+                logger.info("Stored {} requests in H2 database in {} s ({} requests/s)", lines,
+                        String.format(Locale.US, "%.3f", seconds), Math.round(lines / seconds));
+            }
+        } else {
+            logger.info("Retrieving requests from H2 database ...");
+            reload();
         }
+        logger.info("Calculating statistics ...");
+        aggregator.publish();
+        follower.start();
         logger.info("Application initialized");
     }
 
+    /**
+     * Loads the stored requests into the in-memory columns, and calculates their statistics with a single scan over
+     * the columns, counting resources and hosts according to the mode of the aggregator
+     */
+    private void reload() {
+        requestBulkRepository.forEach(columns::append);
+        aggregator.merge(StatisticsCalculator.createBaseStatisticsContainer(columns, aggregator.createContainer()));
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(LogParserApplication.class, args);
     }
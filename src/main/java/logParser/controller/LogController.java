@@ -1,52 +1,50 @@
 package logParser.controller;
 
-import jakarta.annotation.PostConstruct;
+import logParser.domainModel.FileProgress;
+import logParser.domainModel.HostRequests;
+import logParser.domainModel.RequestQuery;
+import logParser.domainModel.RequestTimeline;
+import logParser.domainModel.ResponseHistograms;
 import logParser.domainModel.StatisticsContainer;
-import logParser.dataModel.RequestEntity;
-import logParser.repository.RequestRepository;
+import logParser.util.HyperLogLog;
+import logParser.util.LogIngester;
+import logParser.util.LongHistogram;
+import logParser.util.RequestColumns;
+import logParser.util.RequestQueryScanner;
+import logParser.util.StatisticsAggregator;
 import logParser.util.StatisticsCalculator;
 import net.minidev.json.JSONArray;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import net.minidev.json.JSONObject;
 
 import java.text.NumberFormat;
+import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @RestController
 public class LogController {
 
-    @Autowired
-    private RequestRepository requestRepository;
+    /**
+     * The number of entries returned by the top 10 endpoints when no limit is given
+     */
+    private static final int DEFAULT_LIMIT = 10;
 
-    private StatisticsContainer data;
+    @Autowired
+    private StatisticsAggregator aggregator;
 
-    private static final Logger logger = LogManager.getLogger(LogController.class);
+    @Autowired
+    private LogIngester ingester;
 
-    @PostConstruct
-    public void initialize() {
-        logger.info("Retrieving requests from H2 database ...");
-        List<RequestEntity> result = StreamSupport.stream(requestRepository.findAll().spliterator(), false)
-                .collect(Collectors.toList());
-        logger.info("Creating base StatisticsContainer ...");
+    @Autowired
+    private ResponseCache responseCache;
 
-        if (!result.isEmpty()) {
-            data = StatisticsCalculator.createBaseStatisticsContainer(result);
-            data.setResourcesSortedByFrequency(StatisticsCalculator.sortResourcesByFrequency(data.getResourceCallCount()));
-            data.setFailedResourcesSortedByFrequency(StatisticsCalculator.sortFailedResourcesByFrequency(data.getResourceFailCount()));
-            data.setHostsSortedByCallFrequency(StatisticsCalculator.sortHostsByRequestFrequency(data.getRequestsPerHost()));
-            data.setTop10HostResources(StatisticsCalculator.getAllRequestsForTopHosts(data.getHostsSortedByCallFrequency()));
-            data.setTop10FailedResources(StatisticsCalculator.getFrequentlyFailingResources(data.getFailedResourcesSortedByFrequency()));
-            data.setTop10HostRequests(StatisticsCalculator.getFrequentRequestsPerHost(data.getTop10HostResources()));
-        }
-        logger.info("Controller initialized");
-    }
+    @Autowired
+    private RequestColumns columns;
 
     /**
      * Single endpoint containing the concatenated results of all other endpoints.
@@ -58,17 +56,26 @@ public class LogController {
      *   <li>frequent resources
      *   <li>frequent hosts
      *   <li>frequent requests for frequent hosts
+     *   <li>status classes
      * </ul>
      */
     @GetMapping("/logs")
-    public JSONObject logs() {
+    public ResponseEntity<byte[]> logs() {
+        return responseCache.get("logs", aggregator.getStatistics(), this::logs);
+    }
+
+    /**
+     * Builds every field from the same snapshot, even if a new one is published meanwhile
+     */
+    private JSONObject logs(StatisticsContainer data) {
         JSONObject object = new JSONObject();
-        object.appendField("most requested", getMostRequestedResources());
-        object.appendField("successful", getSuccessfulRequestPercentage());
-        object.appendField("failed", getFailedRequestPercentage());
-        object.appendField("frequent resources", getFrequentlyFailingResources());
-        object.appendField("frequent hosts", getFrequentlyAppearingHosts());
-        object.appendField("frequent requests for frequent hosts", getFrequentRequestsForFrequentlyAppearingHosts());
+        object.appendField("most requested", mostRequestedResources(data, DEFAULT_LIMIT));
+        object.appendField("successful", successfulRequestPercentage(data));
+        object.appendField("failed", failedRequestPercentage(data));
+        object.appendField("frequent resources", frequentlyFailingResources(data, DEFAULT_LIMIT));
+        object.appendField("frequent hosts", frequentlyAppearingHosts(data, DEFAULT_LIMIT));
+        object.appendField("frequent requests for frequent hosts", frequentRequestsForFrequentlyAppearingHosts(data));
+        object.appendField("status classes", statusClasses(data));
 
         return object;
     }
@@ -76,15 +83,23 @@ public class LogController {
     /**
      * The top 10 resources that were requested and the number of calls to each resource, sorted by the number of calls,
      * descending.
+     * @param limit The number of resources to return, 10 if not given
      * @return A JSONArray with 10 entries
      */
     @GetMapping("/top10Resources")
-    public JSONArray getMostRequestedResources() {
+    public ResponseEntity<byte[]> getMostRequestedResources(@RequestParam(defaultValue = "10") int limit) {
+        if (limit != DEFAULT_LIMIT) {
+            return responseCache.render(mostRequestedResources(aggregator.getStatistics(), limit));
+        }
+        return responseCache.get("mostRequestedResources", aggregator.getStatistics(), data -> mostRequestedResources(data, limit));
+    }
+
+    private JSONArray mostRequestedResources(StatisticsContainer data, int limit) {
         JSONArray top10Resources = new JSONArray();
         if (data != null) {
             JSONObject resource;
-            LinkedHashMap<String, Integer> entries = data.getResourcesSortedByFrequency().entrySet().stream().limit(10)
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, _) -> e1, LinkedHashMap::new));
+            LinkedHashMap<String, Integer> entries = limit == DEFAULT_LIMIT ? data.getTop10Resources()
+                    : StatisticsCalculator.getMostRequestedResources(data.getResourceCallCounter(), limit);
             for (Map.Entry<String, Integer> entry : entries.entrySet()) {
                 resource = new JSONObject();
                 resource.appendField("resource", entry.getKey());
@@ -97,10 +112,20 @@ public class LogController {
 
     /**
      * The percentage of successful requests (i.e. requests with a response code like 2xx or 3xx).
+     * @param from The start of the period to include, as an ISO-8601 instant, or all requests if not given
+     * @param to The end of the period to include, exclusive, or all requests if not given
      * @return A single JSONObject with "successful request percentage" as its field
      */
     @GetMapping("/successPercentage")
-    public JSONObject getSuccessfulRequestPercentage() {
+    public ResponseEntity<byte[]> getSuccessfulRequestPercentage(@RequestParam(required = false) Instant from,
+                                                                 @RequestParam(required = false) Instant to) {
+        if (from != null || to != null) {
+            return responseCache.render(successfulRequestPercentage(period(aggregator.getStatistics(), from, to)));
+        }
+        return responseCache.get("successfulRequestPercentage", aggregator.getStatistics(), this::successfulRequestPercentage);
+    }
+
+    private JSONObject successfulRequestPercentage(StatisticsContainer data) {
         JSONObject successfulPercentage = new JSONObject();
         if (data != null) {
             NumberFormat nf = NumberFormat.getInstance(Locale.US);
@@ -114,31 +139,84 @@ public class LogController {
     /**
      * The percentage of failed requests (i.e. requests with a response code not like 2xx or 3xx, including requests
      * that couldn't be parsed).
+     * @param from The start of the period to include, as an ISO-8601 instant, or all requests if not given
+     * @param to The end of the period to include, exclusive, or all requests if not given
      * @return A single JSONObject with "failed request percentage" as its field
      */
     @GetMapping("/failPercentage")
-    public JSONObject getFailedRequestPercentage() {
+    public ResponseEntity<byte[]> getFailedRequestPercentage(@RequestParam(required = false) Instant from,
+                                                             @RequestParam(required = false) Instant to) {
+        if (from != null || to != null) {
+            return responseCache.render(failedRequestPercentage(period(aggregator.getStatistics(), from, to)));
+        }
+        return responseCache.get("failedRequestPercentage", aggregator.getStatistics(), this::failedRequestPercentage);
+    }
+
+    private JSONObject failedRequestPercentage(StatisticsContainer data) {
         JSONObject failedPercentage = new JSONObject();
         if (data != null) {
             NumberFormat nf = NumberFormat.getInstance(Locale.US);
             nf.setMaximumFractionDigits(3);
-            int failedRequests = data.getAllRequests() - data.getSuccessfulRequests();
+            long failedRequests = data.getAllRequests() - data.getSuccessfulRequests();
             Double percentage = ((failedRequests) * 1.0 / data.getAllRequests()) * 100;
             failedPercentage.appendField("failed request percentage", nf.format(percentage));
         }
         return failedPercentage;
     }
 
+    /**
+     * The number and percentage of requests per response code class (i.e. 1xx, 2xx, 3xx, 4xx and 5xx, plus "unknown"
+     * for requests without a valid response code).
+     * @param from The start of the period to include, as an ISO-8601 instant, or all requests if not given
+     * @param to The end of the period to include, exclusive, or all requests if not given
+     * @return A JSONArray with 6 entries
+     */
+    @GetMapping("/statusClasses")
+    public ResponseEntity<byte[]> getStatusClasses(@RequestParam(required = false) Instant from,
+                                                   @RequestParam(required = false) Instant to) {
+        if (from != null || to != null) {
+            return responseCache.render(statusClasses(period(aggregator.getStatistics(), from, to)));
+        }
+        return responseCache.get("statusClasses", aggregator.getStatistics(), this::statusClasses);
+    }
+
+    private JSONArray statusClasses(StatisticsContainer data) {
+        JSONArray statusClasses = new JSONArray();
+        if (data != null) {
+            NumberFormat nf = NumberFormat.getInstance(Locale.US);
+            nf.setMaximumFractionDigits(3);
+            JSONObject statusClass;
+            long[] statusClassCount = data.getStatusClassCount();
+            for (int i = 1; i <= statusClassCount.length; i++) {
+                int index = i % statusClassCount.length;
+                statusClass = new JSONObject();
+                statusClass.appendField("status class", index == 0 ? "unknown" : index + "xx");
+                statusClass.appendField("requests", statusClassCount[index]);
+                statusClass.appendField("percentage", nf.format((statusClassCount[index] * 1.0 / data.getAllRequests()) * 100));
+                statusClasses.add(statusClass);
+            }
+        }
+        return statusClasses;
+    }
+
     /**
      * The top 10 failing resources, sorted by failure frequency, descending.
+     * @param limit The number of resources to return, 10 if not given
      * @return A JSONArray with 10 entries
      */
     @GetMapping("/top10FailingResources")
-    public JSONArray getFrequentlyFailingResources() {
+    public ResponseEntity<byte[]> getFrequentlyFailingResources(@RequestParam(defaultValue = "10") int limit) {
+        if (limit != DEFAULT_LIMIT) {
+            return responseCache.render(frequentlyFailingResources(aggregator.getStatistics(), limit));
+        }
+        return responseCache.get("frequentlyFailingResources", aggregator.getStatistics(), data -> frequentlyFailingResources(data, limit));
+    }
+
+    private JSONArray frequentlyFailingResources(StatisticsContainer data, int limit) {
         JSONArray top10Failed = new JSONArray();
         if (data != null) {
             JSONObject failedRequest;
-            for (String request : data.getTop10FailedResources()) {
+            for (String request : StatisticsCalculator.getMostFailingResources(data.getResourceFailCounter(), limit).keySet()) {
                 failedRequest = new JSONObject();
                 failedRequest.appendField("resource", request);
                 top10Failed.add(failedRequest);
@@ -149,17 +227,27 @@ public class LogController {
 
     /**
      * The top 10 hosts with the most requests (includes the hostname/IP and the number of requests made by each host).
+     * @param limit The number of hosts to return, 10 if not given
      * @return A JSONArray with 10 entries
      */
     @GetMapping("/top10Hosts")
-    public JSONArray getFrequentlyAppearingHosts() {
+    public ResponseEntity<byte[]> getFrequentlyAppearingHosts(@RequestParam(defaultValue = "10") int limit) {
+        if (limit != DEFAULT_LIMIT) {
+            return responseCache.render(frequentlyAppearingHosts(aggregator.getStatistics(), limit));
+        }
+        return responseCache.get("frequentlyAppearingHosts", aggregator.getStatistics(), data -> frequentlyAppearingHosts(data, limit));
+    }
+
+    private JSONArray frequentlyAppearingHosts(StatisticsContainer data, int limit) {
         JSONArray top10Hosts = new JSONArray();
         if (data != null) {
             JSONObject host;
-            for (Map.Entry<String, List<String>> request : data.getTop10HostResources().entrySet()) {
+            LinkedHashMap<String, HostRequests> entries = limit == DEFAULT_LIMIT ? data.getTop10HostResources()
+                    : StatisticsCalculator.getMostFrequentHosts(data.getRequestsPerHost(), limit);
+            for (Map.Entry<String, HostRequests> request : entries.entrySet()) {
                 host = new JSONObject();
                 host.appendField("host", request.getKey());
-                host.appendField("requests", request.getValue().size());
+                host.appendField("requests", request.getValue().getTotalRequests());
                 top10Hosts.add(host);
             }
         }
@@ -171,17 +259,21 @@ public class LogController {
      * @return A JSONArray with 10 entries, each of which contains a JSONArray with 5 entries
      */
     @GetMapping("/top5RequestsForTop10Hosts")
-    public JSONArray getFrequentRequestsForFrequentlyAppearingHosts() {
+    public ResponseEntity<byte[]> getFrequentRequestsForFrequentlyAppearingHosts() {
+        return responseCache.get("frequentRequestsForFrequentlyAppearingHosts", aggregator.getStatistics(), this::frequentRequestsForFrequentlyAppearingHosts);
+    }
+
+    private JSONArray frequentRequestsForFrequentlyAppearingHosts(StatisticsContainer data) {
         JSONArray top10HostsTop5Requests = new JSONArray();
         if (data != null) {
             JSONObject hostObject;
             JSONArray hostRequests;
             JSONObject hostRequestObj;
-            for (Map.Entry<String, LinkedHashMap<String, Long>> hostRequest : new ArrayList<>(data.getTop10HostRequests().entrySet())) {
+            for (Map.Entry<String, LinkedHashMap<String, Integer>> hostRequest : new ArrayList<>(data.getTop10HostRequests().entrySet())) {
                 hostObject = new JSONObject();
                 hostObject.appendField("host", hostRequest.getKey());
                 hostRequests = new JSONArray();
-                for (Map.Entry<String, Long> hostRequestCount : hostRequest.getValue().entrySet()) {
+                for (Map.Entry<String, Integer> hostRequestCount : hostRequest.getValue().entrySet()) {
                     hostRequestObj = new JSONObject();
                     hostRequestObj.appendField("resource", hostRequestCount.getKey());
                     hostRequestObj.appendField("count", hostRequestCount.getValue());
@@ -193,4 +285,261 @@ public class LogController {
         }
         return top10HostsTop5Requests;
     }
-}
\ No newline at end of file
+
+    /**
+     * The estimated number of distinct hosts that performed requests.
+     * @return A JSONObject with the number of unique hosts
+     */
+    @GetMapping("/uniqueHosts")
+    public ResponseEntity<byte[]> getUniqueHosts() {
+        return responseCache.get("uniqueHosts", aggregator.getStatistics(), this::uniqueHosts);
+    }
+
+    private JSONObject uniqueHosts(StatisticsContainer data) {
+        JSONObject uniqueHosts = new JSONObject();
+        uniqueHosts.appendField("unique hosts", data == null ? 0 : data.getUniqueHosts().estimate());
+        return uniqueHosts;
+    }
+
+    /**
+     * The estimated number of distinct hosts that requested each of the top 10 resources, sorted by the number of
+     * calls, descending. Only the resources kept by the detailed resource counter have a sketch of their hosts, so
+     * "unique hosts" is null for the others, as the percentiles of a resource without histograms are.
+     * @param limit The number of resources to return, 10 if not given
+     * @return A JSONArray with 10 entries
+     */
+    @GetMapping("/uniqueHostsPerResource")
+    public ResponseEntity<byte[]> getUniqueHostsPerResource(@RequestParam(defaultValue = "10") int limit) {
+        if (limit != DEFAULT_LIMIT) {
+            return responseCache.render(uniqueHostsPerResource(aggregator.getStatistics(), limit));
+        }
+        return responseCache.get("uniqueHostsPerResource", aggregator.getStatistics(), data -> uniqueHostsPerResource(data, limit));
+    }
+
+    private JSONArray uniqueHostsPerResource(StatisticsContainer data, int limit) {
+        JSONArray resources = new JSONArray();
+        if (data != null) {
+            JSONObject resource;
+            LinkedHashMap<String, Integer> entries = limit == DEFAULT_LIMIT ? data.getTop10Resources()
+                    : StatisticsCalculator.getMostRequestedResources(data.getResourceCallCounter(), limit);
+            for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+                HyperLogLog hosts = data.getHostsPerResource().get(entry.getKey());
+                resource = new JSONObject();
+                resource.appendField("resource", entry.getKey());
+                resource.appendField("requests", entry.getValue());
+                resource.appendField("unique hosts", hosts == null ? null : hosts.estimate());
+                resources.add(resource);
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * The estimated number of distinct resources requested by each of the top 10 hosts with the most requests, sorted
+     * by the number of requests, descending.
+     * @param limit The number of hosts to return, 10 if not given
+     * @return A JSONArray with 10 entries
+     */
+    @GetMapping("/uniqueResourcesPerHost")
+    public ResponseEntity<byte[]> getUniqueResourcesPerHost(@RequestParam(defaultValue = "10") int limit) {
+        if (limit != DEFAULT_LIMIT) {
+            return responseCache.render(uniqueResourcesPerHost(aggregator.getStatistics(), limit));
+        }
+        return responseCache.get("uniqueResourcesPerHost", aggregator.getStatistics(), data -> uniqueResourcesPerHost(data, limit));
+    }
+
+    private JSONArray uniqueResourcesPerHost(StatisticsContainer data, int limit) {
+        JSONArray hosts = new JSONArray();
+        if (data != null) {
+            JSONObject host;
+            LinkedHashMap<String, HostRequests> entries = limit == DEFAULT_LIMIT ? data.getTop10HostResources()
+                    : StatisticsCalculator.getMostFrequentHosts(data.getRequestsPerHost(), limit);
+            for (Map.Entry<String, HostRequests> entry : entries.entrySet()) {
+                host = new JSONObject();
+                host.appendField("host", entry.getKey());
+                host.appendField("requests", entry.getValue().getTotalRequests());
+                host.appendField("unique resources", entry.getValue().getUniqueResources().estimate());
+                hosts.add(host);
+            }
+        }
+        return hosts;
+    }
+
+    /**
+     * The 50th, 90th and 99th percentiles and the maximum of the response sizes and response times, of every request or
+     * of the requests for a single resource. Percentiles are accurate to about 3%.
+     * @param resource The resource whose responses are described, or every resource if not given
+     * @return A JSONObject with the percentiles of the bytes and of the response time
+     */
+    @GetMapping("/percentiles")
+    public ResponseEntity<byte[]> getPercentiles(@RequestParam(required = false) String resource) {
+        if (resource != null) {
+            return responseCache.render(percentiles(aggregator.getStatistics(), resource));
+        }
+        return responseCache.get("percentiles", aggregator.getStatistics(), data -> percentiles(data, null));
+    }
+
+    private JSONObject percentiles(StatisticsContainer data, String resource) {
+        ResponseHistograms responses = null;
+        if (data != null) {
+            responses = resource == null ? data.getResponses() : data.getResponsesPerResource().get(resource);
+        }
+        JSONObject percentiles = new JSONObject();
+        if (resource != null) {
+            percentiles.appendField("resource", resource);
+        }
+        percentiles.appendField("bytes", percentiles(responses == null ? null : responses.getBytes()));
+        percentiles.appendField("response time", percentiles(responses == null ? null : responses.getResponseTime()));
+        return percentiles;
+    }
+
+    private JSONObject percentiles(LongHistogram histogram) {
+        boolean empty = histogram == null || histogram.getCount() == 0;
+        JSONObject percentiles = new JSONObject();
+        percentiles.appendField("count", empty ? 0 : histogram.getCount());
+        percentiles.appendField("p50", empty ? null : histogram.getValueAtPercentile(50));
+        percentiles.appendField("p90", empty ? null : histogram.getValueAtPercentile(90));
+        percentiles.appendField("p99", empty ? null : histogram.getValueAtPercentile(99));
+        percentiles.appendField("max", empty ? null : histogram.getMax());
+        return percentiles;
+    }
+
+    /**
+     * The number of requests, successful and failed, in each minute, hour or day of a period, oldest first. Only the
+     * minutes, hours or days that contain requests are included.
+     * @param interval MINUTE, HOUR or DAY, HOUR if not given
+     * @param from The start of the period, as an ISO-8601 instant, or the oldest request kept if not given
+     * @param to The end of the period, exclusive, or the newest request if not given
+     * @return A JSONArray with one entry per minute, hour or day
+     */
+    @GetMapping("/timeline")
+    public ResponseEntity<byte[]> getTimeline(@RequestParam(defaultValue = "HOUR") RequestTimeline.Interval interval,
+                                              @RequestParam(required = false) Instant from,
+                                              @RequestParam(required = false) Instant to) {
+        if (from != null || to != null) {
+            return responseCache.render(timeline(aggregator.getStatistics(), interval, from, to));
+        }
+        return responseCache.get("timeline" + interval, aggregator.getStatistics(), data -> timeline(data, interval, null, null));
+    }
+
+    private JSONArray timeline(StatisticsContainer data, RequestTimeline.Interval interval, Instant from, Instant to) {
+        JSONArray buckets = new JSONArray();
+        if (data != null) {
+            data.getTimeline().forEach(interval, millis(from, Long.MIN_VALUE), millis(to, Long.MAX_VALUE), (start, counts) -> {
+                int successful = counts[2] + counts[3];
+                int requests = 0;
+                for (int count : counts) {
+                    requests += count;
+                }
+                JSONObject bucket = new JSONObject();
+                bucket.appendField("start", Instant.ofEpochMilli(start).toString());
+                bucket.appendField("requests", requests);
+                bucket.appendField("successful", successful);
+                bucket.appendField("failed", requests - successful);
+                buckets.add(bucket);
+            });
+        }
+        return buckets;
+    }
+
+    /**
+     * The number of requests that match every given filter, and the values of one of their fields with the most
+     * matching requests, e.g. the top resources requested by hosts matching *.nasa.gov that failed with 404 in the
+     * last hour. Answered by scanning the requests kept in memory, not the H2 database.
+     * @param host The hosts to include, where * matches any characters, or a prefix of the hosts if it has no *
+     * @param resource The resources to include, with the same syntax as host
+     * @param verb The http verb to include
+     * @param minResponseCode The lowest response code to include
+     * @param maxResponseCode The highest response code to include
+     * @param from The start of the period to include, as an ISO-8601 instant
+     * @param to The end of the period to include, exclusive
+     * @param groupBy HOST, HTTP_VERB, RESOURCE or RESPONSE_CODE, RESOURCE if not given
+     * @param limit The number of values to return, 10 if not given
+     * @return A JSONObject with the number of matching requests, and a JSONArray with up to limit entries
+     */
+    @GetMapping("/query")
+    public ResponseEntity<byte[]> query(@RequestParam(required = false) String host,
+                                        @RequestParam(required = false) String resource,
+                                        @RequestParam(required = false) String verb,
+                                        @RequestParam(required = false) Integer minResponseCode,
+                                        @RequestParam(required = false) Integer maxResponseCode,
+                                        @RequestParam(required = false) Instant from,
+                                        @RequestParam(required = false) Instant to,
+                                        @RequestParam(defaultValue = "RESOURCE") RequestQuery.GroupBy groupBy,
+                                        @RequestParam(defaultValue = "10") int limit) {
+        RequestQuery query = new RequestQuery();
+        query.setHost(host);
+        query.setResource(resource);
+        query.setHttpVerb(verb);
+        query.setMinResponseCode(minResponseCode);
+        query.setMaxResponseCode(maxResponseCode);
+        query.setFrom(from == null ? null : from.toEpochMilli());
+        query.setTo(to == null ? null : to.toEpochMilli());
+        query.setGroupBy(groupBy);
+        query.setLimit(limit);
+        RequestQueryScanner.Result result = RequestQueryScanner.execute(columns, query);
+
+        String field = switch (groupBy) {
+            case HOST -> "host";
+            case HTTP_VERB -> "verb";
+            case RESOURCE -> "resource";
+            case RESPONSE_CODE -> "response code";
+        };
+        JSONArray groups = new JSONArray();
+        for (Map.Entry<String, Integer> entry : result.groups().entrySet()) {
+            JSONObject group = new JSONObject();
+            group.appendField(field, entry.getKey());
+            group.appendField("requests", entry.getValue());
+            groups.add(group);
+        }
+        JSONObject object = new JSONObject();
+        object.appendField("matched", result.matched());
+        object.appendField("groups", groups);
+        return responseCache.render(object);
+    }
+
+    /**
+     * Builds a StatisticsContainer with the request counts of a period only, from the timeline of a snapshot. The
+     * period is widened to the minutes, hours or days it overlaps, depending on how far back it starts.
+     * @return A StatisticsContainer whose allRequests, successfulRequests and statusClassCount fields are filled, or
+     * null if there were no requests in the period
+     */
+    private static StatisticsContainer period(StatisticsContainer data, Instant from, Instant to) {
+        if (data == null) {
+            return null;
+        }
+        long[] statusClassCount = data.getTimeline().getStatusClassCount(millis(from, Long.MIN_VALUE), millis(to, Long.MAX_VALUE));
+        StatisticsContainer period = new StatisticsContainer();
+        period.setStatusClassCount(statusClassCount);
+        period.setAllRequests(Arrays.stream(statusClassCount).sum());
+        period.setSuccessfulRequests(statusClassCount[2] + statusClassCount[3]);
+        return period.getAllRequests() == 0 ? null : period;
+    }
+
+    private static long millis(Instant instant, long defaultValue) {
+        return instant == null ? defaultValue : instant.toEpochMilli();
+    }
+
+    /**
+     * The progress of ingesting each log file (includes the file path, its size in bytes, its status, the number of
+     * lines parsed so far and the time spent on it in seconds).
+     * @return A JSONArray with one entry per log file, sorted by path
+     */
+    @GetMapping("/ingestProgress")
+    public JSONArray getIngestProgress() {
+        JSONArray files = new JSONArray();
+        NumberFormat nf = NumberFormat.getInstance(Locale.US);
+        nf.setMaximumFractionDigits(3);
+        JSONObject file;
+        for (FileProgress progress : ingester.getProgress()) {
+            file = new JSONObject();
+            file.appendField("file", progress.getFile());
+            file.appendField("bytes", progress.getBytes());
+            file.appendField("status", progress.getStatus().name());
+            file.appendField("lines", progress.getLines());
+            file.appendField("seconds", nf.format(progress.getSeconds()));
+            files.add(file);
+        }
+        return files;
+    }
+}
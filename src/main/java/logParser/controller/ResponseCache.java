@@ -0,0 +1,71 @@
+package logParser.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import logParser.domainModel.StatisticsContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps the serialized JSON responses built from the last published statistics snapshot, so that each response is
+ * only built and serialized once per snapshot. Every response carries a strong ETag, calculated from its bytes, so
+ * requests with a matching If-None-Match header are answered with 304 Not Modified.
+ */
+@Component
+public class ResponseCache {
+    /**
+     * A serialized response, along with the version of the snapshot it was built from, so that a response that is
+     * rarely requested doesn't keep an old snapshot alive
+     */
+    private record Rendered(long version, ResponseEntity<byte[]> response) {
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Rendered> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached response for the given snapshot, building and serializing it first if the snapshot has
+     * changed since it was cached
+     * @param key The name of the response
+     * @param snapshot The current statistics snapshot, which may be null
+     * @param builder Builds the JSON response from a snapshot
+     * @return A response with the serialized JSON and its ETag
+     */
+    ResponseEntity<byte[]> get(String key, StatisticsContainer snapshot, Function<StatisticsContainer, Object> builder) {
+        long version = snapshot == null ? 0 : snapshot.getVersion();
+        Rendered rendered = responses.get(key);
+        if (rendered == null || rendered.version() != version) {
+            rendered = new Rendered(version, render(builder.apply(snapshot)));
+            responses.put(key, rendered);
+        }
+        return rendered.response();
+    }
+
+    /**
+     * Serializes a JSON response that is not cached, e.g. one with a custom limit
+     * @param json A JSONObject or JSONArray
+     * @return A response with the serialized JSON and its ETag
+     */
+    ResponseEntity<byte[]> render(Object json) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(json);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(DigestUtils.md5DigestAsHex(body))
+                .body(body);
+    }
+}
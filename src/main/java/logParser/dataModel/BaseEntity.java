@@ -8,7 +8,18 @@ import lombok.Getter;
 @Inheritance(strategy= InheritanceType.SINGLE_TABLE)
 @Table(name="logs")
 public abstract class BaseEntity {
+    /**
+     * The name of the sequence that generates ids
+     */
+    public static final String ID_SEQUENCE = "logs_seq";
+
+    /**
+     * How many ids are reserved with each call to the id sequence
+     */
+    public static final int ID_ALLOCATION_SIZE = 1000;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 }
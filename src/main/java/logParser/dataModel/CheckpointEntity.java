@@ -0,0 +1,55 @@
+package logParser.dataModel;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * How far a single log file has been ingested. A checkpoint is stored in the same transaction as each batch of
+ * requests, so it always matches the requests that have been committed, and ingest can resume after the last batch.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "ingest_checkpoints")
+public class CheckpointEntity {
+    /**
+     * The path of the log file
+     */
+    @Id
+    @Column(name = "path")
+    private String path;
+
+    /**
+     * The number of lines of the file that have been parsed and committed
+     */
+    @Column(name = "line_number")
+    private long lineNumber;
+
+    /**
+     * The number of requests stored from the file
+     */
+    @Column(name = "rows_committed")
+    private long rowsCommitted;
+
+    /**
+     * Whether the whole file has been ingested
+     */
+    @Column(name = "complete")
+    private boolean complete;
+
+    public CheckpointEntity(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Creates the checkpoint reached after committing another batch of requests
+     * @param rows The number of requests in the batch, one per line
+     * @param complete Whether the batch ends the file
+     * @return A new checkpoint for the same file
+     */
+    public CheckpointEntity advance(int rows, boolean complete) {
+        return new CheckpointEntity(path, lineNumber + rows, rowsCommitted + rows, complete);
+    }
+}
@@ -3,7 +3,6 @@ package logParser.dataModel;
 import jakarta.persistence.*;
 import lombok.*;
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
@@ -31,7 +30,56 @@ public class RequestEntity extends BaseEntity {
      * The response code returned
      */
     @Column(name = "response_code")
-    private String responseCode;
+    private Integer responseCode;
+
+    /**
+     * The time of the request in milliseconds since the epoch, or null if it could not be parsed
+     */
+    @Column(name = "request_time")
+    private Long timestamp;
+
+    /**
+     * The number of bytes of the response, or null if it was not logged
+     */
+    @Column(name = "response_bytes")
+    private Long bytes;
+
+    /**
+     * The time taken to serve the request, as logged after the number of bytes in the extended format, e.g. in
+     * microseconds, or null if it was not logged
+     */
+    @Column(name = "response_time")
+    private Long responseTime;
+
+    /**
+     * The id of the host in the host symbol table, or -1 if the request hasn't been encoded
+     */
+    @Transient
+    private int hostId = -1;
+
+    /**
+     * The id of the http verb in the http verb symbol table, or -1 if the request hasn't been encoded
+     */
+    @Transient
+    private int httpVerbId = -1;
+
+    /**
+     * The id of the resource in the resource symbol table, or -1 if the request hasn't been encoded
+     */
+    @Transient
+    private int resourceId = -1;
+
+    public RequestEntity(String host, String httpVerb, String resource, Integer responseCode) {
+        this.host = host;
+        this.httpVerb = httpVerb;
+        this.resource = resource;
+        this.responseCode = responseCode;
+    }
+
+    public RequestEntity(String host, String httpVerb, String resource, Integer responseCode, Long timestamp) {
+        this(host, httpVerb, resource, responseCode);
+        this.timestamp = timestamp;
+    }
 
     /**
      * Checks whether the request was successful or not
@@ -41,15 +89,26 @@ public class RequestEntity extends BaseEntity {
         if (responseCode == null)
             return false;
 
-        return responseCode.matches("[2,3]\\d{2}");
+        return responseCode >= 200 && responseCode < 400;
+    }
+
+    /**
+     * Retrieves the class of the response code, i.e. its first digit
+     * @return A number from 1 to 5, or 0 if the response code is missing or outside the 100 - 599 range
+     */
+    public int getStatusClass() {
+        if (responseCode == null || responseCode < 100 || responseCode > 599)
+            return 0;
+
+        return responseCode / 100;
     }
 
     /**
      * Checks if the given field has been parsed correctly
-     * @param field A string containing a field value
+     * @param field A field value
      * @return True if the field was parsed correctly
      */
-    private Boolean isFieldValid(String field) {
+    private Boolean isFieldValid(Object field) {
         return field != null;
     }
 
@@ -0,0 +1,68 @@
+package logParser.domainModel;
+
+import lombok.Getter;
+
+/**
+ * The progress of ingesting a single log file. Updated by the thread that ingests the file, and readable from any
+ * other thread.
+ */
+@Getter
+public class FileProgress {
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * The path of the log file
+     */
+    private final String file;
+
+    /**
+     * The size of the log file on disk, in bytes
+     */
+    private final long bytes;
+
+    private volatile Status status = Status.PENDING;
+
+    /**
+     * The number of lines parsed so far
+     */
+    private volatile long lines = 0;
+
+    private volatile long startTime = 0;
+
+    private volatile long endTime = 0;
+
+    public FileProgress(String file, long bytes) {
+        this.file = file;
+        this.bytes = bytes;
+    }
+
+    public void start() {
+        startTime = System.nanoTime();
+        status = Status.RUNNING;
+    }
+
+    public void update(long lines) {
+        this.lines = lines;
+    }
+
+    public void finish(long lines, boolean succeeded) {
+        this.lines = lines;
+        endTime = System.nanoTime();
+        status = succeeded ? Status.DONE : Status.FAILED;
+    }
+
+    /**
+     * @return The number of seconds spent on the file so far, 0 if it hasn't been started
+     */
+    public double getSeconds() {
+        if (startTime == 0) {
+            return 0;
+        }
+        return ((endTime == 0 ? System.nanoTime() : endTime) - startTime) / 1e9;
+    }
+}
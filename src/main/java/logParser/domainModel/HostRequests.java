@@ -0,0 +1,47 @@
+package logParser.domainModel;
+
+import logParser.util.HyperLogLog;
+import logParser.util.KeyCounter;
+import logParser.util.ObjectIntCounter;
+import logParser.util.SpaceSavingCounter;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class HostRequests {
+    /**
+     * How many times each resource was requested by the host
+     */
+    private KeyCounter<String> resourceCallCounter = new ObjectIntCounter<>();
+
+    /**
+     * The distinct resources requested by the host, including those that resourceCallCounter no longer counts
+     */
+    private HyperLogLog uniqueResources = new HyperLogLog();
+
+    /**
+     * The total number of requests performed by the host
+     */
+    private int totalRequests = 0;
+
+    /**
+     * @param capacity The number of resources counted approximately, or 0 for counting every resource exactly
+     */
+    public HostRequests(int capacity) {
+        if (capacity > 0) {
+            resourceCallCounter = new SpaceSavingCounter<>(capacity);
+        }
+    }
+
+    /**
+     * @return A read-only view of how many times each resource was requested by the host
+     */
+    public Map<String, Integer> getResourceCallCount() {
+        return resourceCallCounter.asMap();
+    }
+}
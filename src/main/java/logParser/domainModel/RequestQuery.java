@@ -0,0 +1,74 @@
+package logParser.domainModel;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An ad-hoc question about the stored requests: which requests to count, and how to group them. Every filter is
+ * optional, and the requests must match all the filters that are set.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class RequestQuery {
+    public enum GroupBy {
+        HOST,
+        HTTP_VERB,
+        RESOURCE,
+        RESPONSE_CODE
+    }
+
+    /**
+     * The hosts to count, where <code>*</code> matches any characters, e.g. <code>*.nasa.gov</code>. A pattern without
+     * <code>*</code> matches the hosts that start with it.
+     */
+    private String host;
+
+    /**
+     * The resources to count, with the same syntax as {@link #host}, e.g. <code>/shuttle/</code>
+     */
+    private String resource;
+
+    /**
+     * The http verb to count
+     */
+    private String httpVerb;
+
+    /**
+     * The lowest response code to count, inclusive
+     */
+    private Integer minResponseCode;
+
+    /**
+     * The highest response code to count, inclusive
+     */
+    private Integer maxResponseCode;
+
+    /**
+     * The start of the period to count in milliseconds since the epoch, inclusive
+     */
+    private Long from;
+
+    /**
+     * The end of the period to count in milliseconds since the epoch, exclusive
+     */
+    private Long to;
+
+    /**
+     * The field whose values the matching requests are counted by
+     */
+    private GroupBy groupBy = GroupBy.RESOURCE;
+
+    /**
+     * The maximum number of values to return, the ones with the most requests
+     */
+    private int limit = 10;
+
+    /**
+     * @return True if the requests must have a timestamp within a period
+     */
+    public boolean hasPeriod() {
+        return from != null || to != null;
+    }
+}
@@ -0,0 +1,119 @@
+package logParser.domainModel;
+
+import logParser.util.BucketRing;
+
+/**
+ * Counts requests per response code class over time, in per minute, per hour and per day buckets, so that the
+ * statistics of a period can be answered from the buckets instead of going through the stored requests again. Each
+ * interval keeps a limited number of buckets, counted back from the most recent request, so finer intervals cover
+ * shorter periods.
+ * <p>
+ * The buckets only hold counters, not HyperLogLog sketches of the hosts or resources seen in them: with up to 4 KB per
+ * sketch, the 8748 buckets of the three intervals could take about 36 MB per timeline, so the distinct counts are only
+ * kept for every request aggregated, in the {@link StatisticsContainer}.
+ */
+public class RequestTimeline {
+    /**
+     * The number of counters in each bucket, one per response code class, as in
+     * {@link StatisticsContainer#getStatusClassCount()}
+     */
+    public static final int STATUS_CLASSES = 6;
+
+    public enum Interval {
+        /**
+         * One minute buckets, for the last two days
+         */
+        MINUTE(60_000L, 2 * 24 * 60),
+
+        /**
+         * One hour buckets, for the last 92 days
+         */
+        HOUR(3_600_000L, 92 * 24),
+
+        /**
+         * One day buckets, for the last ten years
+         */
+        DAY(86_400_000L, 3660);
+
+        private final long width;
+        private final int capacity;
+
+        Interval(long width, int capacity) {
+            this.width = width;
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return The width of a bucket in milliseconds
+         */
+        public long getWidth() {
+            return width;
+        }
+    }
+
+    private final BucketRing[] rings = new BucketRing[Interval.values().length];
+
+    public RequestTimeline() {
+        for (Interval interval : Interval.values()) {
+            rings[interval.ordinal()] = new BucketRing(interval.width, interval.capacity, STATUS_CLASSES);
+        }
+    }
+
+    /**
+     * Counts a single request in the buckets of every interval
+     * @param timestamp The time of the request in milliseconds since the epoch
+     * @param statusClass The class of its response code, from 0 to 5
+     */
+    public void add(long timestamp, int statusClass) {
+        for (BucketRing ring : rings) {
+            ring.add(timestamp, statusClass, 1);
+        }
+    }
+
+    /**
+     * Adds the buckets of another timeline to those of this one
+     * @param other A RequestTimeline, left unchanged
+     */
+    public void addAll(RequestTimeline other) {
+        for (int i = 0; i < rings.length; i++) {
+            rings[i].addAll(other.rings[i]);
+        }
+    }
+
+    /**
+     * Selects the finest interval whose buckets still cover the given time, or the coarsest one if none does
+     * @param from A time in milliseconds since the epoch
+     * @return An Interval
+     */
+    public Interval intervalFor(long from) {
+        for (Interval interval : Interval.values()) {
+            if (rings[interval.ordinal()].getOldest() <= from) {
+                return interval;
+            }
+        }
+        return Interval.DAY;
+    }
+
+    /**
+     * Counts the requests per response code class in a period, using the finest interval that covers it. The period
+     * is widened to the boundaries of the buckets it overlaps.
+     * @param from The start of the period in milliseconds since the epoch, inclusive
+     * @param to The end of the period in milliseconds since the epoch, exclusive
+     * @return The number of requests per response code class, as in {@link StatisticsContainer#getStatusClassCount()}
+     */
+    public long[] getStatusClassCount(long from, long to) {
+        return rings[intervalFor(from).ordinal()].sum(from, to);
+    }
+
+    /**
+     * Passes every bucket of the given interval that overlaps a period and contains requests to the consumer, oldest
+     * first
+     * @param interval The interval of the buckets
+     * @param from The start of the period in milliseconds since the epoch, inclusive
+     * @param to The end of the period in milliseconds since the epoch, exclusive
+     * @param consumer Receives the start of each bucket and its number of requests per response code class
+     */
+    public void forEach(Interval interval, long from, long to, BucketRing.BucketConsumer consumer) {
+        rings[interval.ordinal()].forEach(from, to, consumer);
+    }
+}
@@ -0,0 +1,44 @@
+package logParser.domainModel;
+
+import logParser.util.LongHistogram;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class ResponseHistograms {
+    /**
+     * The number of bytes of each response, for the requests that logged it
+     */
+    private LongHistogram bytes = new LongHistogram();
+
+    /**
+     * The time taken to serve each request, for the requests that logged it
+     */
+    private LongHistogram responseTime = new LongHistogram();
+
+    /**
+     * Counts the response of a single request
+     * @param bytes The number of bytes of the response, or null if it was not logged
+     * @param responseTime The time taken to serve the request, or null if it was not logged
+     */
+    public void add(Long bytes, Long responseTime) {
+        if (bytes != null) {
+            this.bytes.record(bytes);
+        }
+        if (responseTime != null) {
+            this.responseTime.record(responseTime);
+        }
+    }
+
+    /**
+     * Adds every response counted by other histograms to these ones, leaving them unchanged
+     * @param other The ResponseHistograms to add
+     */
+    public void merge(ResponseHistograms other) {
+        bytes.merge(other.bytes);
+        responseTime.merge(other.responseTime);
+    }
+}
@@ -1,5 +1,9 @@
 package logParser.domainModel;
 
+import logParser.util.HyperLogLog;
+import logParser.util.KeyCounter;
+import logParser.util.ObjectIntCounter;
+import logParser.util.SpaceSavingCounter;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -10,50 +14,94 @@ import java.util.*;
 @Getter
 @Setter
 public class StatisticsContainer {
+    /**
+     * The number of the publish that made this container a snapshot, increasing with every publish, or 0 if it has not
+     * been published
+     */
+    private long version = 0;
+
     /**
      * How many times each resource was called
      */
-    private HashMap<String, Integer> resourceCallCount = new HashMap<>();
+    private KeyCounter<String> resourceCallCounter = new ObjectIntCounter<>();
+
+    /**
+     * How many times each resource was requested per host
+     */
+    private HashMap<String, HostRequests> requestsPerHost = new HashMap<>();
+
+    /**
+     * How many requests each of the most frequent hosts performed, deciding which hosts are kept in requestsPerHost,
+     * or null if every host is counted exactly
+     */
+    private SpaceSavingCounter<String> hostCounter;
+
+    /**
+     * The number of resources counted per host, if the hosts are counted approximately
+     */
+    private int hostResourceCapacity = 0;
 
     /**
-     * Which requests were made per host
+     * The distinct hosts that performed requests
      */
-    private HashMap<String, List<String>> requestsPerHost = new HashMap<>();
+    private HyperLogLog uniqueHosts = new HyperLogLog();
+
+    /**
+     * Which resources have distinct hosts and response histograms when resources are counted exactly, i.e. the most
+     * frequent ones, or null if every resource counted in resourceCallCounter has them
+     */
+    private SpaceSavingCounter<String> detailedResourceCounter;
+
+    /**
+     * The distinct hosts that requested each resource, for the resources counted by the detailed resource counter
+     */
+    private HashMap<String, HyperLogLog> hostsPerResource = new HashMap<>();
+
+    /**
+     * The sizes and response times of every request
+     */
+    private ResponseHistograms responses = new ResponseHistograms();
+
+    /**
+     * The sizes and response times of the requests for each resource counted by the detailed resource counter
+     */
+    private HashMap<String, ResponseHistograms> responsesPerResource = new HashMap<>();
 
     /**
      * The total number of requests performed
      */
-    private Integer allRequests = 0;
+    private long allRequests = 0;
 
     /**
      * The total number of successful requests
      */
-    private Integer successfulRequests = 0;
+    private long successfulRequests = 0;
 
     /**
-     * How many times each resource request failed
+     * The number of requests per response code class, where index 1 to 5 correspond to 1xx to 5xx, and index 0 to
+     * requests without a valid response code
      */
-    private HashMap<String, Integer> resourceFailCount = new HashMap<>();
+    private long[] statusClassCount = new long[6];
 
     /**
-     * How many times each resource was called, sorted by frequency descending
+     * The number of requests per response code class over time, for the requests whose timestamp could be parsed
      */
-    private LinkedHashMap<String, Integer> resourcesSortedByFrequency;
+    private RequestTimeline timeline = new RequestTimeline();
 
     /**
-     * How many times each resource was called and failed, sorted by failure frequency descending
+     * How many times each resource request failed
      */
-    private LinkedHashMap<String, Integer> failedResourcesSortedByFrequency;
+    private KeyCounter<String> resourceFailCounter = new ObjectIntCounter<>();
 
     /**
-     * Which requests were made per host, sorted by frequency descending
+     * How many times each of the top 10 resources in frequency was called, sorted by frequency descending
      */
-    private LinkedHashMap<String, List<String>> hostsSortedByCallFrequency;
+    private LinkedHashMap<String, Integer> top10Resources = new LinkedHashMap<>();
 
     /**
-     * Which requests were made for the top 10 hosts in frequency
+     * How many times each resource was requested for the top 10 hosts in frequency
      */
-    private LinkedHashMap<String, List<String>> top10HostResources;
+    private LinkedHashMap<String, HostRequests> top10HostResources;
 
     /**
      * The top 10 resources that fail more often
@@ -63,5 +111,132 @@ public class StatisticsContainer {
     /**
      * How frequently each resource gets called, for the top 10 hosts
      */
-    private LinkedHashMap<String, LinkedHashMap<String, Long>> top10HostRequests = new LinkedHashMap<>();
+    private LinkedHashMap<String, LinkedHashMap<String, Integer>> top10HostRequests = new LinkedHashMap<>();
+
+    /**
+     * Creates a StatisticsContainer that counts resources, failed resources and hosts approximately, keeping only the
+     * most frequent ones, so that its memory does not grow with the number of distinct resources and hosts
+     * @param capacity The number of resources, failed resources and hosts counted
+     * @param hostResourceCapacity The number of resources counted per host
+     * @see SpaceSavingCounter
+     */
+    public StatisticsContainer(int capacity, int hostResourceCapacity) {
+        this.resourceCallCounter = new SpaceSavingCounter<>(capacity, this::dropResourceDetails);
+        this.resourceFailCounter = new SpaceSavingCounter<>(capacity);
+        this.hostCounter = new SpaceSavingCounter<>(capacity, requestsPerHost::remove);
+        this.hostResourceCapacity = hostResourceCapacity;
+    }
+
+    /**
+     * Creates a StatisticsContainer that counts every resource and host exactly, but only keeps the distinct hosts and
+     * response histograms of the most frequent resources, so that their memory does not grow with the number of
+     * distinct resources
+     * @param detailCapacity The number of resources with distinct hosts and response histograms
+     */
+    public StatisticsContainer(int detailCapacity) {
+        this.detailedResourceCounter = new SpaceSavingCounter<>(detailCapacity, this::dropResourceDetails);
+    }
+
+    /**
+     * Adds calls to the count of a resource, and to the count deciding whether it keeps its distinct hosts and response
+     * histograms
+     * @param resource The called resource
+     * @param calls The number of calls
+     */
+    public void addResourceCalls(String resource, int calls) {
+        resourceCallCounter.add(resource, calls);
+        if (detailedResourceCounter != null) {
+            detailedResourceCounter.add(resource, calls);
+        }
+    }
+
+    /**
+     * @return The counter whose resources have distinct hosts and response histograms, which is resourceCallCounter
+     * unless resources are counted exactly with a bounded number of details
+     */
+    public KeyCounter<String> getDetailedResourceCounter() {
+        return detailedResourceCounter != null ? detailedResourceCounter : resourceCallCounter;
+    }
+
+    /**
+     * @param resource A resource
+     * @return True if the resource replaced another one in the detailed resource counter, so that its distinct hosts
+     * may have been dropped since its hosts were first counted, and need to be added again
+     */
+    public boolean hasPartialResourceDetails(String resource) {
+        return detailedResourceCounter != null && detailedResourceCounter.getError(resource) > 0;
+    }
+
+    /**
+     * Adds requests to the total of a host, and starts counting the resources of the host if they aren't counted yet.
+     * When hosts are counted approximately, this may replace the least frequent host, along with its resources.
+     * @param host The host that performed the requests
+     * @param requests The number of requests
+     * @return The HostRequests of the host, whose total has been updated, but not its resources
+     */
+    public HostRequests addHostRequests(String host, int requests) {
+        if (hostCounter == null) {
+            HostRequests hostRequests = requestsPerHost.computeIfAbsent(host, _ -> new HostRequests());
+            hostRequests.setTotalRequests(hostRequests.getTotalRequests() + requests);
+            return hostRequests;
+        }
+
+        int total = hostCounter.add(host, requests);
+        HostRequests hostRequests = requestsPerHost.computeIfAbsent(host, _ -> new HostRequests(hostResourceCapacity));
+        hostRequests.setTotalRequests(total);
+        return hostRequests;
+    }
+
+    /**
+     * Returns the sketch of the distinct hosts that requested a resource, creating it if needed. When resources are
+     * counted approximately, or only the most frequent ones have details, a resource only has a sketch while it is
+     * counted by the detailed resource counter, so its sketch only includes the hosts since it was last counted.
+     * @param resource A resource
+     * @return The HyperLogLog of the hosts of the resource, or null if the resource has no details
+     */
+    public HyperLogLog getHostsOfResource(String resource) {
+        if (getDetailedResourceCounter().get(resource) == 0) {
+            return null;
+        }
+        return hostsPerResource.computeIfAbsent(resource, _ -> new HyperLogLog());
+    }
+
+    /**
+     * Returns the histograms of the responses for a resource, creating them if needed. Like
+     * {@link #getHostsOfResource(String)}, a resource only has histograms while it is counted.
+     * @param resource A resource
+     * @return The ResponseHistograms of the resource, or null if the resource has no details
+     */
+    public ResponseHistograms getResponsesOfResource(String resource) {
+        if (getDetailedResourceCounter().get(resource) == 0) {
+            return null;
+        }
+        return responsesPerResource.computeIfAbsent(resource, _ -> new ResponseHistograms());
+    }
+
+    private void dropResourceDetails(String resource) {
+        hostsPerResource.remove(resource);
+        responsesPerResource.remove(resource);
+    }
+
+    /**
+     * @return True if resources and hosts are counted approximately
+     */
+    public boolean isApproximate() {
+        return hostCounter != null;
+    }
+
+    /**
+     * @return A read-only view of how many times each resource was called
+     */
+    public Map<String, Integer> getResourceCallCount() {
+        return resourceCallCounter.asMap();
+    }
+
+    /**
+     * @return A read-only view of how many times each resource request failed
+     */
+    public Map<String, Integer> getResourceFailCount() {
+        return resourceFailCounter.asMap();
+    }
 }
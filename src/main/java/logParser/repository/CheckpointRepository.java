@@ -0,0 +1,11 @@
+package logParser.repository;
+
+import logParser.dataModel.CheckpointEntity;
+import org.springframework.data.repository.CrudRepository;
+
+public interface CheckpointRepository extends CrudRepository<CheckpointEntity, String> {
+    /**
+     * @return The number of log files whose ingest has been started but not completed
+     */
+    long countByCompleteFalse();
+}
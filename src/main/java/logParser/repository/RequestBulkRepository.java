@@ -0,0 +1,124 @@
+package logParser.repository;
+
+import logParser.dataModel.BaseEntity;
+import logParser.dataModel.CheckpointEntity;
+import logParser.dataModel.RequestEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Stores requests with plain JDBC batch inserts, bypassing the persistence context, for loading large numbers of
+ * requests at once. Ids are reserved from the same sequence and in the same blocks as the ones generated by
+ * Hibernate, so both ways of storing requests can be used on the same table.
+ */
+@Repository
+public class RequestBulkRepository {
+    private static final String INSERT_SQL =
+            "INSERT INTO logs (dtype, id, host, verb, resource, response_code, request_time, response_bytes, response_time) "
+                    + "VALUES ('RequestEntity', ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL =
+            "SELECT host, verb, resource, response_code, request_time, response_bytes, response_time FROM logs";
+    private static final String CHECKPOINT_SQL =
+            "MERGE INTO ingest_checkpoints (path, line_number, rows_committed, complete) KEY (path) VALUES (?, ?, ?, ?)";
+    private static final String NEXT_ID_SQL = "SELECT NEXT VALUE FOR " + BaseEntity.ID_SEQUENCE;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts all given requests in a single transaction, using one JDBC batch
+     * @param requests The requests to insert
+     * @return The number of inserted requests
+     */
+    @Transactional
+    public int saveAll(List<RequestEntity> requests) {
+        if (requests.isEmpty()) {
+            return 0;
+        }
+
+        long[] ids = reserveIds(requests.size());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RequestEntity request = requests.get(i);
+                ps.setLong(1, ids[i]);
+                ps.setString(2, request.getHost());
+                ps.setString(3, request.getHttpVerb());
+                ps.setString(4, request.getResource());
+                ps.setObject(5, request.getResponseCode(), Types.INTEGER);
+                ps.setObject(6, request.getTimestamp(), Types.BIGINT);
+                ps.setObject(7, request.getBytes(), Types.BIGINT);
+                ps.setObject(8, request.getResponseTime(), Types.BIGINT);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return requests.size();
+            }
+        });
+        return requests.size();
+    }
+
+    /**
+     * Inserts all given requests and stores the checkpoint reached after them in a single transaction, so that the
+     * checkpoint is never ahead of or behind the stored requests
+     * @param requests The requests to insert, which may be empty
+     * @param checkpoint The checkpoint of the log file the requests were read from
+     * @return The number of inserted requests
+     */
+    @Transactional
+    public int saveAll(List<RequestEntity> requests, CheckpointEntity checkpoint) {
+        int saved = saveAll(requests);
+        jdbcTemplate.update(CHECKPOINT_SQL, checkpoint.getPath(), checkpoint.getLineNumber(),
+                checkpoint.getRowsCommitted(), checkpoint.isComplete());
+        return saved;
+    }
+
+    /**
+     * Reads every stored request and hands it over to the given sink, one row at a time, without keeping the
+     * requests in memory
+     * @param sink A Consumer that receives each stored request
+     */
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<RequestEntity> sink) {
+        jdbcTemplate.query(SELECT_SQL, (ResultSet rs) -> {
+            RequestEntity request = new RequestEntity(rs.getString(1), rs.getString(2), rs.getString(3),
+                    rs.getObject(4, Integer.class), rs.getObject(5, Long.class));
+            request.setBytes(rs.getObject(6, Long.class));
+            request.setResponseTime(rs.getObject(7, Long.class));
+            sink.accept(request);
+        });
+    }
+
+    /**
+     * Reserves the given number of ids, one block of {@link BaseEntity#ID_ALLOCATION_SIZE} at a time. Like
+     * Hibernate's pooled optimizer, each sequence value v reserves the ids from v - ID_ALLOCATION_SIZE + 1 to v.
+     * @param count The number of ids to reserve
+     * @return The reserved ids
+     */
+    private long[] reserveIds(int count) {
+        long[] ids = new long[count];
+        int reserved = 0;
+        while (reserved < count) {
+            long hiValue = jdbcTemplate.queryForObject(NEXT_ID_SQL, Long.class);
+            if (hiValue < BaseEntity.ID_ALLOCATION_SIZE) {
+                // The first value of a fresh sequence does not reserve a full block
+                continue;
+            }
+            for (long id = hiValue - BaseEntity.ID_ALLOCATION_SIZE + 1; id <= hiValue && reserved < count; id++) {
+                ids[reserved++] = id;
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,173 @@
+package logParser.util;
+
+import java.util.Arrays;
+
+/**
+ * A ring buffer of fixed-width time buckets, each holding a few counters, which keeps the most recent buckets only.
+ * A bucket is reused as soon as time moves a whole ring past it, so the memory used never grows, however long the
+ * period covered by the requests. Requests may arrive out of order, as long as they are not older than the oldest
+ * bucket kept.
+ */
+public class BucketRing {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    /**
+     * The width of each bucket in milliseconds
+     */
+    private final long width;
+
+    private final int capacity;
+
+    private final int counters;
+
+    /**
+     * The number of the bucket held in each slot, counted in widths since the epoch, or EMPTY
+     */
+    private long[] buckets;
+
+    /**
+     * The counters of each slot, one after the other
+     */
+    private int[] counts;
+
+    /**
+     * The number of the most recent bucket, or EMPTY if nothing has been added yet
+     */
+    private long newest = EMPTY;
+
+    /**
+     * @param width The width of each bucket in milliseconds
+     * @param capacity The number of buckets kept
+     * @param counters The number of counters in each bucket
+     */
+    public BucketRing(long width, int capacity, int counters) {
+        this.width = width;
+        this.capacity = capacity;
+        this.counters = counters;
+    }
+
+    /**
+     * Adds to a counter of the bucket that contains the given time
+     * @param time A time in milliseconds since the epoch
+     * @param counter The index of the counter
+     * @param delta The value to add
+     * @return False if the time is older than every bucket kept, in which case nothing is added
+     */
+    public boolean add(long time, int counter, int delta) {
+        int slot = slot(Math.floorDiv(time, width));
+        if (slot < 0) {
+            return false;
+        }
+        counts[slot * counters + counter] += delta;
+        return true;
+    }
+
+    /**
+     * Adds every bucket kept by another ring with the same width and counters to this one
+     * @param other A BucketRing, left unchanged
+     */
+    public void addAll(BucketRing other) {
+        if (other.newest == EMPTY) {
+            return;
+        }
+        for (long bucket = other.newest - other.capacity + 1; bucket <= other.newest; bucket++) {
+            int otherSlot = (int) Math.floorMod(bucket, (long) other.capacity);
+            if (other.buckets[otherSlot] != bucket) {
+                continue;
+            }
+            int slot = slot(bucket);
+            if (slot >= 0) {
+                for (int i = 0; i < counters; i++) {
+                    counts[slot * counters + i] += other.counts[otherSlot * counters + i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The start of the oldest bucket kept in milliseconds since the epoch, or Long.MAX_VALUE if the ring is
+     * empty
+     */
+    public long getOldest() {
+        return newest == EMPTY ? Long.MAX_VALUE : (newest - capacity + 1) * width;
+    }
+
+    /**
+     * @return The end of the newest bucket kept in milliseconds since the epoch, or Long.MIN_VALUE if the ring is empty
+     */
+    public long getNewest() {
+        return newest == EMPTY ? Long.MIN_VALUE : (newest + 1) * width;
+    }
+
+    public long getWidth() {
+        return width;
+    }
+
+    /**
+     * Passes every non-empty bucket that overlaps the given period to the consumer, oldest first
+     * @param from The start of the period in milliseconds since the epoch, inclusive
+     * @param to The end of the period in milliseconds since the epoch, exclusive
+     * @param consumer Receives the start of each bucket and its counters, which must not be modified
+     */
+    public void forEach(long from, long to, BucketConsumer consumer) {
+        if (newest == EMPTY || to <= from) {
+            return;
+        }
+        long first = Math.max(Math.floorDiv(from, width), newest - capacity + 1);
+        long last = Math.min(Math.floorDiv(to - 1, width), newest);
+        int[] bucketCounts = new int[counters];
+        for (long bucket = first; bucket <= last; bucket++) {
+            int slot = (int) Math.floorMod(bucket, (long) capacity);
+            if (buckets[slot] == bucket) {
+                System.arraycopy(counts, slot * counters, bucketCounts, 0, counters);
+                consumer.accept(bucket * width, bucketCounts);
+            }
+        }
+    }
+
+    /**
+     * Sums the counters of every bucket that overlaps the given period
+     * @param from The start of the period in milliseconds since the epoch, inclusive
+     * @param to The end of the period in milliseconds since the epoch, exclusive
+     * @return The sum of each counter
+     */
+    public long[] sum(long from, long to) {
+        long[] sum = new long[counters];
+        forEach(from, to, (_, bucketCounts) -> {
+            for (int i = 0; i < counters; i++) {
+                sum[i] += bucketCounts[i];
+            }
+        });
+        return sum;
+    }
+
+    /**
+     * Finds the slot of the given bucket, claiming it if it holds an older bucket
+     * @return The slot, or -1 if the bucket is older than every bucket kept
+     */
+    private int slot(long bucket) {
+        if (buckets == null) {
+            buckets = new long[capacity];
+            Arrays.fill(buckets, EMPTY);
+            counts = new int[capacity * counters];
+        }
+        if (newest == EMPTY || bucket > newest) {
+            newest = bucket;
+        } else if (bucket <= newest - capacity) {
+            return -1;
+        }
+
+        int slot = (int) Math.floorMod(bucket, (long) capacity);
+        if (buckets[slot] != bucket) {
+            // Either empty, or a bucket that has fallen out of the ring
+            buckets[slot] = bucket;
+            Arrays.fill(counts, slot * counters, (slot + 1) * counters, 0);
+        }
+        return slot;
+    }
+
+    @FunctionalInterface
+    public interface BucketConsumer {
+        void accept(long start, int[] counts);
+    }
+}
@@ -0,0 +1,64 @@
+package logParser.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A CharSequence over a range of bytes in a ByteBuffer, such as a single line of a memory-mapped file, which is read in
+ * place instead of being copied and decoded first. {@link #charAt(int)} returns each byte as a single char, which is
+ * exact for ASCII text, while {@link #subSequence(int, int)} and {@link #toString()} decode the bytes as UTF-8.
+ * <p>
+ * Bytes of multibyte UTF-8 characters are never equal to ASCII characters, so scanning for ASCII delimiters like
+ * {@link LogLineTokenizer} does finds the same fields as it would in the decoded text. Instances can be reset to a
+ * new range, so a single one can be reused for every line of a buffer by a single thread.
+ */
+public final class ByteSequence implements CharSequence {
+    private final ByteBuffer buffer;
+    private int start;
+    private int end;
+
+    /**
+     * @param buffer The buffer containing the bytes, which are read with absolute gets only
+     */
+    public ByteSequence(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Moves the sequence to a new range of the buffer
+     * @param start The index of the first byte, inclusive
+     * @param end The index of the last byte, exclusive
+     * @return This sequence
+     */
+    public ByteSequence reset(int start, int end) {
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public String subSequence(int from, int to) {
+        return decode(start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return decode(start, end);
+    }
+
+    private String decode(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package logParser.util;
+
+/**
+ * Parses the fixed-format timestamps of the Common Log Format, e.g. <code>01/Aug/1995:00:00:01 -0400</code>, into
+ * epoch milliseconds. Every field is at a fixed position, so the timestamp is read digit by digit, without the
+ * allocations and locale handling of a general purpose date parser.
+ */
+public final class ClfTimestamp {
+    /**
+     * Returned for timestamps that are not in the expected format
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * The length of a timestamp, from the first digit of the day to the last digit of the zone offset
+     */
+    public static final int LENGTH = 26;
+
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+    private ClfTimestamp() {
+    }
+
+    /**
+     * Parses a timestamp within a line
+     * @param input A CharSequence containing the timestamp
+     * @param start The index of the first digit of the day
+     * @param end The index after the last digit of the zone offset
+     * @return The timestamp in milliseconds since the epoch, or {@link #INVALID} if it is not a valid timestamp
+     */
+    public static long parse(CharSequence input, int start, int end) {
+        if (end - start != LENGTH || input.charAt(start + 2) != '/' || input.charAt(start + 6) != '/'
+                || input.charAt(start + 11) != ':' || input.charAt(start + 14) != ':' || input.charAt(start + 17) != ':'
+                || input.charAt(start + 20) != ' ') {
+            return INVALID;
+        }
+
+        int day = digits(input, start, 2);
+        int month = month(input, start + 3);
+        int year = digits(input, start + 7, 4);
+        int hour = digits(input, start + 12, 2);
+        int minute = digits(input, start + 15, 2);
+        int second = digits(input, start + 18, 2);
+        char sign = input.charAt(start + 21);
+        int offsetHours = digits(input, start + 22, 2);
+        int offsetMinutes = digits(input, start + 24, 2);
+        if (day < 1 || month < 1 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0
+                || second > 60 || offsetHours < 0 || offsetMinutes < 0 || (sign != '+' && sign != '-')
+                || day > daysInMonth(year, month)) {
+            return INVALID;
+        }
+
+        long offsetSeconds = (offsetHours * 60L + offsetMinutes) * 60 * (sign == '-' ? -1 : 1);
+        long seconds = daysFromCivil(year, month, day) * 86400 + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return seconds * 1000;
+    }
+
+    /**
+     * @return The value of count decimal digits, or -1 if any of them is not a digit
+     */
+    private static int digits(CharSequence input, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @return The month, from 1 to 12, of a three letter English abbreviation, or -1 if it is not one
+     */
+    private static int month(CharSequence input, int start) {
+        char first = input.charAt(start);
+        char second = input.charAt(start + 1);
+        char third = input.charAt(start + 2);
+        for (int i = 0; i < 12; i++) {
+            if (MONTHS.charAt(3 * i) == first && MONTHS.charAt(3 * i + 1) == second && MONTHS.charAt(3 * i + 2) == third) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Counts the days from 1970-01-01 to the given date of the proleptic Gregorian calendar, with the algorithm of
+     * Howard Hinnant's <i>chrono-Compatible Low-Level Date Algorithms</i>
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
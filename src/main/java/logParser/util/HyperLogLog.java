@@ -0,0 +1,219 @@
+package logParser.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Estimates the number of distinct values added to it, in a fixed amount of memory, with the HyperLogLog algorithm of
+ * Flajolet et al. Each value is hashed to 64 bits: the first precision bits select one of 2^precision registers, which
+ * keeps the highest position of the first 1 bit seen in the rest of the hashes. The relative standard error of the
+ * estimate is about 1.04 / sqrt(2^precision), e.g. 1.6% for the default precision of 12, with 4 KB of registers.
+ * <p>
+ * Sketches with few values keep their registers sparse, as a sorted array of (register, value) entries, and only
+ * switch to one byte per register once the entries would take more memory, so that the many sketches of rare
+ * resources or hosts stay small. Sketches with the same precision are merged by keeping the highest value of each
+ * register, which gives the same sketch as adding all the values to a single one, whatever their order and however
+ * they were split, e.g. across log files or periods.
+ */
+public class HyperLogLog {
+    /**
+     * The default number of bits selecting a register
+     */
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+
+    /**
+     * One byte per register, or null while the registers are sparse
+     */
+    private byte[] registers;
+
+    /**
+     * The registers that aren't 0 while the sketch is sparse, as <code>register << 8 | value</code>, sorted by register
+     */
+    private int[] entries = new int[4];
+    private int entryCount = 0;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision The number of bits selecting a register, from 4 to 16, using 2^precision bytes once dense
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Adds a value through its hashCode, which is only 32 bits wide, so that the cached hashCode of a String can be
+     * reused. Distinct values whose hashCodes collide are counted once, which only becomes noticeable next to the error
+     * of the estimate with billions of distinct values.
+     * @param value The value to add, which may be null
+     */
+    public void add(Object value) {
+        addHash(mix(Objects.hashCode(value)));
+    }
+
+    /**
+     * Adds a value by its hash
+     * @param hash A well distributed 64-bit hash of the value
+     */
+    public void addHash(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // The sentinel bit bounds the value at 64 - precision + 1 when the remaining bits are all 0
+        int value = Long.numberOfLeadingZeros(hash << precision | 1L << (precision - 1)) + 1;
+        update(register, value);
+    }
+
+    /**
+     * Adds every value of another sketch to this one, leaving it unchanged
+     * @param other A HyperLogLog with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge a sketch of precision " + other.precision + " into one of precision " + precision);
+        }
+        if (other.registers == null) {
+            for (int i = 0; i < other.entryCount; i++) {
+                update(other.entries[i] >>> 8, other.entries[i] & 0xFF);
+            }
+            return;
+        }
+
+        if (registers == null) {
+            toDense();
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return The estimated number of distinct values added to this sketch
+     */
+    public long estimate() {
+        int m = 1 << precision;
+        double sum = 0;
+        int zeros;
+        if (registers == null) {
+            for (int i = 0; i < entryCount; i++) {
+                sum += Math.scalb(1.0, -(entries[i] & 0xFF));
+            }
+            zeros = m - entryCount;
+            sum += zeros;
+        } else {
+            zeros = 0;
+            for (byte register : registers) {
+                sum += Math.scalb(1.0, -register);
+                zeros += register == 0 ? 1 : 0;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Small cardinalities are estimated more accurately from the number of empty registers
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * @return A sketch with the same precision and registers, which can be changed independently of this one
+     */
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.merge(this);
+        return copy;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return True while the registers are kept as sorted entries
+     */
+    public boolean isSparse() {
+        return registers == null;
+    }
+
+    private void update(int register, int value) {
+        if (registers != null) {
+            if (value > registers[register]) {
+                registers[register] = (byte) value;
+            }
+            return;
+        }
+
+        int index = search(register);
+        if (index >= 0) {
+            if (value > (entries[index] & 0xFF)) {
+                entries[index] = register << 8 | value;
+            }
+            return;
+        }
+
+        // Four bytes per entry take as much memory as the dense registers once a quarter of them are set
+        if (entryCount == 1 << (precision - 2)) {
+            toDense();
+            registers[register] = (byte) value;
+            return;
+        }
+        index = -index - 1;
+        if (entryCount == entries.length) {
+            entries = Arrays.copyOf(entries, entryCount * 2);
+        }
+        System.arraycopy(entries, index, entries, index + 1, entryCount - index);
+        entries[index] = register << 8 | value;
+        entryCount++;
+    }
+
+    /**
+     * @return The index of the entry of a register, or <code>-(insertion point) - 1</code> if it has none
+     */
+    private int search(int register) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int current = entries[middle] >>> 8;
+            if (current < register) {
+                low = middle + 1;
+            } else if (current > register) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void toDense() {
+        registers = new byte[1 << precision];
+        for (int i = 0; i < entryCount; i++) {
+            registers[entries[i] >>> 8] = (byte) (entries[i] & 0xFF);
+        }
+        entries = null;
+        entryCount = 0;
+    }
+
+    /**
+     * Spreads a 32-bit hashCode over 64 bits, with the finalizer of MurmurHash3
+     */
+    private static long mix(int hashCode) {
+        long hash = hashCode * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,105 @@
+package logParser.util;
+
+import java.util.Arrays;
+
+/**
+ * Counts occurrences per non-negative int key, e.g. the ids of a {@link SymbolTable}, in primitive arrays, using open
+ * addressing with linear probing like {@link ObjectIntCounter}, so that counting neither boxes the keys nor hashes the
+ * values they stand for.
+ */
+public class IntIntCounter {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = emptyKeys(INITIAL_CAPACITY);
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds a value to the count of a key
+     * @param key A non-negative key
+     * @param delta The value to add
+     * @return The new count of the key
+     */
+    public int add(int key, int delta) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+            counts[slot] = delta;
+            if (size * 2 > keys.length) {
+                resize();
+            }
+            return delta;
+        }
+        return counts[slot] += delta;
+    }
+
+    /**
+     * @param key A non-negative key
+     * @return The count of the key, or 0 if it has not been counted
+     */
+    public int get(int key) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? 0 : counts[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Performs an action for each key and its count, in table order
+     * @param action The action to perform
+     */
+    public void forEach(IntIntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = emptyKeys(oldKeys.length * 2);
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int[] emptyKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int count);
+    }
+}
@@ -0,0 +1,57 @@
+package logParser.util;
+
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Counts occurrences per key in primitive ints. Null is a valid key.
+ * @param <K> The type of the counted keys
+ */
+public interface KeyCounter<K> {
+    /**
+     * Adds one to the count of a key
+     * @param key The key to count
+     * @return The new count of the key
+     */
+    default int increment(K key) {
+        return add(key, 1);
+    }
+
+    /**
+     * Adds a value to the count of a key
+     * @param key The key to count
+     * @param delta The value to add
+     * @return The new count of the key
+     */
+    int add(K key, int delta);
+
+    /**
+     * @param key A key
+     * @return The count of the key, 0 if it isn't counted
+     */
+    int get(Object key);
+
+    /**
+     * @return The number of distinct keys that are counted
+     */
+    int size();
+
+    /**
+     * Performs an action for each key and its count
+     * @param action The action to perform
+     */
+    void forEach(ObjIntConsumer<? super K> action);
+
+    /**
+     * Adds every count of another counter to this one
+     * @param other The counter whose counts will be added
+     */
+    default void addAll(KeyCounter<? extends K> other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * @return A read-only Map view of the counts
+     */
+    Map<K, Integer> asMap();
+}
@@ -0,0 +1,39 @@
+package logParser.util;
+
+import logParser.dataModel.RequestEntity;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+/**
+ * The symbol tables for the values that repeat across requests. Every RequestEntity that passes through
+ * {@link #encode(RequestEntity)} shares one String instance per distinct host, http verb and resource, and carries
+ * their ids, so that its values can be hashed, compared and counted cheaply.
+ */
+@Component
+@Getter
+public class LogDictionary {
+    private final SymbolTable hosts = new SymbolTable();
+    private final SymbolTable httpVerbs = new SymbolTable();
+    private final SymbolTable resources = new SymbolTable();
+
+    /**
+     * Replaces the values of a RequestEntity with their canonical instances, and sets their ids
+     * @param request A parsed RequestEntity
+     * @return The same RequestEntity
+     */
+    public RequestEntity encode(RequestEntity request) {
+        int hostId = hosts.idOf(request.getHost());
+        request.setHostId(hostId);
+        request.setHost(hosts.valueOf(hostId));
+
+        int httpVerbId = httpVerbs.idOf(request.getHttpVerb());
+        request.setHttpVerbId(httpVerbId);
+        request.setHttpVerb(httpVerbs.valueOf(httpVerbId));
+
+        int resourceId = resources.idOf(request.getResource());
+        request.setResourceId(resourceId);
+        request.setResource(resources.valueOf(resourceId));
+
+        return request;
+    }
+}
@@ -0,0 +1,336 @@
+package logParser.util;
+
+import jakarta.annotation.PreDestroy;
+import logParser.dataModel.CheckpointEntity;
+import logParser.dataModel.RequestEntity;
+import logParser.domainModel.StatisticsContainer;
+import logParser.repository.CheckpointRepository;
+import logParser.repository.RequestBulkRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows an uncompressed log file that is still being written, like <code>tail -F</code>, by polling it for appended
+ * lines. The lines are parsed and stored in batches, together with the checkpoint of the file, and their statistics
+ * are merged into the aggregator, so that new requests show up without restarting the application.
+ * <p>
+ * Following starts after the last checkpoint of the file, so the lines stored by the initial ingest, or before a
+ * restart, are not read again. A file replaced by a new one at the same path, as log rotation does, is detected by its
+ * file key and read to the end before switching to the new file, while a file truncated in place is read again from
+ * its beginning.
+ */
+@Component
+public class LogFollower {
+    private static final Logger logger = LogManager.getLogger(LogFollower.class);
+
+    private static final int READ_SIZE = 1 << 20;
+
+    @Autowired
+    private LogParser parser;
+
+    @Autowired
+    private RequestBulkRepository requestBulkRepository;
+
+    @Autowired
+    private CheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StatisticsAggregator aggregator;
+
+    @Autowired
+    private RequestColumns columns = new RequestColumns();
+
+    /**
+     * The uncompressed log file to follow, empty for not following any file
+     */
+    @Value("${logParser.follow.path:}")
+    private String followPath = "";
+
+    /**
+     * The number of milliseconds between two polls of the followed file
+     */
+    @Value("${logParser.follow.interval.ms:1000}")
+    private Long intervalMillis = 1000L;
+
+    /**
+     * The maximum number of requests stored in a single batch, as for the initial ingest
+     */
+    @Value("${logParser.ingest.batch.size:10000}")
+    private Integer batchSize = 10000;
+
+    private ScheduledExecutorService scheduler;
+
+    private Path file;
+    private FileChannel channel;
+    private Object fileKey;
+    private CheckpointEntity checkpoint;
+
+    /**
+     * Holds the bytes read after the last line terminator, i.e. a line that is still being written
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+
+    /**
+     * Starts following the configured file in the background, if any
+     */
+    public void start() {
+        if (followPath.isBlank()) {
+            return;
+        }
+        try {
+            follow(Path.of(followPath));
+        } catch (IOException ex) {
+            logger.error("LogFollower Error: could not follow {}", followPath, ex);
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("log-follower").daemon().factory());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (IOException | RuntimeException ex) {
+                logger.error("LogFollower Error: could not read {}", file, ex);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Following {} every {} ms", file, intervalMillis);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        closeChannel();
+    }
+
+    /**
+     * Opens the given file and moves past the lines that have already been stored, according to its checkpoint
+     * @param file The path of an uncompressed log file
+     * @throws IOException If the file could not be read, or is zipped
+     */
+    public synchronized void follow(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            if (inputStream.read() == 0x1f && inputStream.read() == 0x8b) {
+                throw new IOException("Zipped log files cannot be followed: " + file);
+            }
+        }
+
+        this.file = file;
+        checkpoint = checkpointRepository.findById(file.toString()).orElseGet(() -> new CheckpointEntity(file.toString()));
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        buffer.clear();
+
+        MappedLogReader reader = new MappedLogReader(channel, READ_SIZE);
+        long skipped = reader.skipLines(checkpoint.getLineNumber());
+        if (skipped < checkpoint.getLineNumber()) {
+            logger.warn("{} has fewer lines than its checkpoint, following it from its beginning", file);
+            checkpoint = new CheckpointEntity(file.toString());
+            reader = new MappedLogReader(channel, READ_SIZE);
+        }
+        channel.position(reader.getOffset());
+    }
+
+    /**
+     * Reads and stores the lines appended to the followed file since the last poll, switching to a new file if the
+     * followed one has been rotated
+     * @return The number of lines that were read
+     * @throws IOException If the file could not be read
+     */
+    public synchronized int poll() throws IOException {
+        if (channel == null) {
+            return 0;
+        }
+        int lines = readAppended();
+        lines += followRotation();
+        // Polls without new lines still publish the lines of previous polls whose publish was coalesced
+        aggregator.publishIfDue();
+        return lines;
+    }
+
+    /**
+     * Switches to a new file if the followed one has been rotated, or reads it again if it has been truncated
+     * @return The number of lines that were read
+     */
+    private int followRotation() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            // Rotated, but the new file has not been created yet
+            return 0;
+        }
+        int lines = 0;
+        if (fileKey != null && !Objects.equals(fileKey, attributes.fileKey())) {
+            logger.info("{} has been rotated, following the new file", file);
+            lines += readRemainder();
+            closeChannel();
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            fileKey = attributes.fileKey();
+            restart();
+            lines += readAppended();
+        } else if (attributes.size() < channel.position()) {
+            logger.info("{} has been truncated, following it from its beginning", file);
+            channel.position(0);
+            restart();
+            lines += readAppended();
+        }
+        return lines;
+    }
+
+    /**
+     * Reads the followed file up to its current end, parsing every complete line
+     * @return The number of lines that were read
+     */
+    private int readAppended() throws IOException {
+        int lines = 0;
+        while (channel.read(buffer) > 0) {
+            if (!buffer.hasRemaining()) {
+                lines += parseCompleteLines();
+                // A single line longer than the buffer
+                if (!buffer.hasRemaining()) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+            }
+        }
+        return lines + parseCompleteLines();
+    }
+
+    /**
+     * Parses and stores the lines in the buffer up to its last line terminator, i.e. a line feed, a carriage return or
+     * both, like {@link LogParser#parseFile(Path, java.util.function.Consumer)} does, keeping the rest for the next
+     * read
+     * @return The number of lines that were parsed
+     */
+    private int parseCompleteLines() {
+        int end = buffer.position();
+        // A carriage return at the end of the buffer may be followed by a line feed that has not been written yet
+        if (end > 0 && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        byte b;
+        while (end > 0 && (b = buffer.get(end - 1)) != '\n' && b != '\r') {
+            end--;
+        }
+        if (end == 0) {
+            return 0;
+        }
+        return store(end);
+    }
+
+    /**
+     * Parses and stores the last line of a file that will not be written to anymore, even without a line terminator
+     * @return The number of lines that were parsed
+     */
+    private int readRemainder() {
+        if (buffer.position() == 0) {
+            return 0;
+        }
+        return store(buffer.position());
+    }
+
+    /**
+     * Parses and stores the lines at the start of the buffer in batches of up to batchSize lines, and removes them from
+     * the buffer. Each batch is committed, and its statistics merged into the aggregator, before the next one is
+     * parsed, so if a batch cannot be stored, the lines of the batches before it are not read again by the next poll.
+     * The statistics are published by the end of the poll if the publish interval has passed.
+     * @param end The end of the lines to store in the buffer, after a line terminator unless the file is complete
+     * @return The number of lines that were parsed
+     */
+    private int store(int end) {
+        int lines = 0;
+        int start = 0;
+        try {
+            while (start < end) {
+                int batchEnd = endOfLines(start, end, batchSize);
+                lines += storeBatch(buffer.slice(start, batchEnd - start));
+                start = batchEnd;
+            }
+        } finally {
+            buffer.flip().position(start);
+            buffer.compact();
+        }
+        return lines;
+    }
+
+    /**
+     * Finds the end of a number of lines in the buffer, counting a carriage return followed by a line feed as a single
+     * line terminator, like {@link LogParser#parseBuffer(ByteBuffer, long, java.util.function.Consumer)} does
+     * @param from The start of the first line in the buffer
+     * @param end The end of the lines in the buffer
+     * @param count The number of lines
+     * @return The position after the terminator of the last line, or end if there are fewer lines
+     */
+    private int endOfLines(int from, int end, int count) {
+        int position = from;
+        int lines = 0;
+        while (position < end && lines < count) {
+            byte b = buffer.get(position++);
+            if (b == '\n' || b == '\r') {
+                if (b == '\r' && position < end && buffer.get(position) == '\n') {
+                    position++;
+                }
+                lines++;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Parses a batch of whole lines, persists their requests together with the checkpoint reached after them, appends
+     * them to the in-memory columns and merges their statistics into the aggregator
+     * @return The number of lines that were parsed
+     */
+    private int storeBatch(ByteBuffer lines) {
+        StatisticsContainer statistics = aggregator.createContainer();
+        List<RequestEntity> batch = new ArrayList<>(batchSize);
+        int parsed = parser.parseBuffer(lines, checkpoint.getLineNumber(), req -> {
+            StatisticsCalculator.addRequest(statistics, req);
+            batch.add(req);
+        });
+        if (batch.isEmpty()) {
+            return parsed;
+        }
+
+        CheckpointEntity next = checkpoint.advance(batch.size(), true);
+        requestBulkRepository.saveAll(batch, next);
+        checkpoint = next;
+        columns.appendAll(batch);
+        aggregator.merge(statistics);
+        return parsed;
+    }
+
+    /**
+     * Starts a new checkpoint for a file that is read again from its beginning
+     */
+    private void restart() {
+        buffer.clear();
+        checkpoint = new CheckpointEntity(file.toString(), 0, 0, true);
+        requestBulkRepository.saveAll(List.of(), checkpoint);
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
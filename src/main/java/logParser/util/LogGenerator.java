@@ -0,0 +1,373 @@
+package logParser.util;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates synthetic access logs in Common Log Format, like the NASA logs retrieved by {@link LogLoader}, so that
+ * inputs of any size can be produced offline. Hosts and resources are drawn from Zipf distributions, so that a few of
+ * them appear in most of the requests, and a configurable share of the lines fail or cannot be parsed at all. The
+ * output only depends on the settings and the seed.
+ * <p>
+ * It can also be run from the command line, e.g.
+ * <pre>mvn exec:java -Dexec.mainClass=logParser.util.LogGenerator -Dexec.args="--output=stored/access.log.gz --size=2G"</pre>
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class LogGenerator {
+    private static final Logger logger = LogManager.getLogger(LogGenerator.class);
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss", Locale.US);
+    private static final String[] SUCCESS_CODES = {"200", "200", "200", "200", "200", "200", "200", "200", "304", "302"};
+    private static final String[] ERROR_CODES = {"404", "404", "404", "404", "403", "400", "500", "501"};
+
+    /**
+     * The number of lines to generate, used when no size is set
+     */
+    private long lines = 1_000_000;
+
+    /**
+     * The size of the unzipped output in bytes, 0 for generating a fixed number of lines instead
+     */
+    private long size = 0;
+
+    /**
+     * The number of distinct hosts
+     */
+    private int hosts = 10_000;
+
+    /**
+     * The number of distinct resources
+     */
+    private int resources = 2_000;
+
+    /**
+     * The exponent of the Zipf distribution of hosts, 0 for a uniform distribution
+     */
+    private double hostSkew = 1.0;
+
+    /**
+     * The exponent of the Zipf distribution of resources, 0 for a uniform distribution
+     */
+    private double resourceSkew = 1.0;
+
+    /**
+     * The share of the well-formed lines with a response code of 4xx or 5xx
+     */
+    private double errorRatio = 0.05;
+
+    /**
+     * The share of the lines that cannot be parsed
+     */
+    private double malformedRatio = 0.001;
+
+    /**
+     * The number of requests that share the same timestamp
+     */
+    private int requestsPerSecond = 10;
+
+    /**
+     * The timestamp of the first request
+     */
+    private LocalDateTime start = LocalDateTime.of(1995, 8, 1, 0, 0, 0);
+
+    /**
+     * The seed of the random number generator
+     */
+    private long seed = 1995L;
+
+    /**
+     * Whether files are written zipped or as plain text
+     */
+    private boolean zipped = true;
+
+    /**
+     * The number of lines in each gzip member, like the concatenated members written by log shippers, 0 for a single
+     * member
+     */
+    private long memberLines = 0;
+
+    /**
+     * Generates the logs and stores them in the given file, zipped unless configured otherwise, creating its parent
+     * directories if needed
+     * @param file The file where the logs will be stored
+     * @return The number of lines that were written
+     * @throws IOException If the file could not be written
+     */
+    public long write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            if (zipped) {
+                return writeZipped(outputStream);
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.US_ASCII), 65536);
+            long written = write(writer);
+            writer.flush();
+            return written;
+        }
+    }
+
+    /**
+     * Generates the logs and writes them zipped to the given stream, which is left open
+     * @param outputStream The stream where the zipped logs will be written
+     * @return The number of lines that were written
+     * @throws IOException If the stream could not be written
+     */
+    public long writeZipped(OutputStream outputStream) throws IOException {
+        MemberOutputStream memberOutputStream = new MemberOutputStream(outputStream, memberLines);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(memberOutputStream, StandardCharsets.US_ASCII), 65536);
+        long written = write(writer);
+        writer.flush();
+        memberOutputStream.finish();
+        return written;
+    }
+
+    /**
+     * Generates the logs and writes them unzipped, one request per line
+     * @param writer The Writer where the lines will be written
+     * @return The number of lines that were written
+     * @throws IOException If the lines could not be written
+     */
+    public long write(Writer writer) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        ZipfDistribution hostDistribution = new ZipfDistribution(hosts, hostSkew);
+        ZipfDistribution resourceDistribution = new ZipfDistribution(resources, resourceSkew);
+        StringBuilder line = new StringBuilder(256);
+
+        long epochSecond = start.toEpochSecond(ZoneOffset.UTC);
+        long second = -1;
+        String timestamp = null;
+        long bytes = 0;
+        long count = 0;
+        while (size > 0 ? bytes < size : count < lines) {
+            long currentSecond = epochSecond + count / Math.max(1, requestsPerSecond);
+            if (currentSecond != second) {
+                second = currentSecond;
+                timestamp = TIMESTAMP_FORMAT.format(LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC)) + " -0400";
+            }
+
+            line.setLength(0);
+            appendLine(line, random, hostDistribution.sample(random), resourceDistribution.sample(random), timestamp);
+            line.append('\n');
+            writer.append(line);
+
+            bytes += line.length();
+            count++;
+        }
+        return count;
+    }
+
+    private void appendLine(StringBuilder line, SplittableRandom random, int host, int resource, String timestamp) {
+        String verb = verb(random);
+        String responseCode = random.nextDouble() < errorRatio
+                ? ERROR_CODES[random.nextInt(ERROR_CODES.length)]
+                : SUCCESS_CODES[random.nextInt(SUCCESS_CODES.length)];
+        String bytes = random.nextInt(10) == 0 ? "-" : String.valueOf(random.nextInt(200_000));
+
+        if (random.nextDouble() >= malformedRatio) {
+            appendRequest(line, host, resource, timestamp, verb).append(" HTTP/1.0\" ").append(responseCode).append(' ').append(bytes);
+            return;
+        }
+
+        switch (random.nextInt(4)) {
+            // The protocol is missing, like in some of the NASA logs
+            case 0 -> appendRequest(line, host, resource, timestamp, verb).append("\" ").append(responseCode).append(' ').append(bytes);
+            // The line has been cut off
+            case 1 -> {
+                appendRequest(line, host, resource, timestamp, verb);
+                line.setLength(line.length() / 2);
+            }
+            // The response code is missing
+            case 2 -> appendRequest(line, host, resource, timestamp, verb).append(" HTTP/1.0\" - ").append(bytes);
+            default -> line.append("garbage ").append(random.nextInt(1_000_000));
+        }
+    }
+
+    private static StringBuilder appendRequest(StringBuilder line, int host, int resource, String timestamp, String verb) {
+        appendHost(line, host);
+        line.append(" - - [").append(timestamp).append("] \"").append(verb).append(' ');
+        return appendResource(line, resource);
+    }
+
+    private static void appendHost(StringBuilder line, int host) {
+        if (host % 4 == 0) {
+            line.append("192.").append(host >>> 16 & 0xFF).append('.').append(host >>> 8 & 0xFF).append('.').append(host & 0xFF);
+        } else {
+            line.append("host").append(host).append(".example").append(host % 97).append(".com");
+        }
+    }
+
+    private static StringBuilder appendResource(StringBuilder line, int resource) {
+        line.append("/shuttle/missions/sts-").append(resource % 80);
+        return switch (resource % 3) {
+            case 0 -> line.append("/mission-sts-").append(resource).append(".html");
+            case 1 -> line.append("/images/").append(resource).append(".gif");
+            default -> line.append("/news/").append(resource).append(".txt");
+        };
+    }
+
+    private static String verb(SplittableRandom random) {
+        int value = random.nextInt(100);
+        return value < 90 ? "GET" : value < 96 ? "HEAD" : "POST";
+    }
+
+    /**
+     * Zips everything written to it, starting a new gzip member after every given number of lines
+     */
+    private static class MemberOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final long memberLines;
+        private GZIPOutputStream member;
+        private long lines = 0;
+
+        MemberOutputStream(OutputStream out, long memberLines) {
+            this.out = out;
+            this.memberLines = memberLines;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int end = off + len;
+            while (off < end) {
+                if (member == null) {
+                    member = new GZIPOutputStream(out, 65536);
+                }
+                int next = off;
+                if (memberLines > 0) {
+                    while (next < end && b[next] != '\n') {
+                        next++;
+                    }
+                } else {
+                    next = end - 1;
+                }
+                member.write(b, off, Math.min(next + 1, end) - off);
+                if (memberLines > 0 && next < end && ++lines % memberLines == 0) {
+                    member.finish();
+                    member = null;
+                }
+                off = next + 1;
+            }
+        }
+
+        /**
+         * Finishes the last member, leaving the underlying stream open
+         */
+        void finish() throws IOException {
+            if (member == null && lines == 0) {
+                member = new GZIPOutputStream(out, 65536);
+            }
+            if (member != null) {
+                member.finish();
+                member = null;
+            }
+        }
+    }
+
+    /**
+     * Draws ranks from 0 to n - 1, where the probability of rank k is proportional to 1 / (k + 1)^skew
+     */
+    private static class ZipfDistribution {
+        private final double[] cumulative;
+
+        ZipfDistribution(int n, double skew) {
+            cumulative = new double[Math.max(1, n)];
+            double sum = 0;
+            for (int k = 0; k < cumulative.length; k++) {
+                sum += 1.0 / Math.pow(k + 1, skew);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < cumulative.length; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+
+    /**
+     * Generates a log file from the command line
+     * @param args Options in the form --name=value: output (required), lines, size (with an optional K, M or G
+     *             suffix), hosts, resources, hostSkew, resourceSkew, errorRatio, malformedRatio, requestsPerSecond,
+     *             start (e.g. 1995-08-01T00:00:00), seed,
+     *             zipped (true or false) and memberLines
+     * @throws IOException If the file could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        Path output = null;
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected an option like --name=value, got: " + arg);
+            }
+            String value = option[1];
+            switch (option[0]) {
+                case "output" -> output = Path.of(value);
+                case "lines" -> generator.setLines(Long.parseLong(value));
+                case "size" -> generator.setSize(parseSize(value));
+                case "hosts" -> generator.setHosts(Integer.parseInt(value));
+                case "resources" -> generator.setResources(Integer.parseInt(value));
+                case "hostSkew" -> generator.setHostSkew(Double.parseDouble(value));
+                case "resourceSkew" -> generator.setResourceSkew(Double.parseDouble(value));
+                case "errorRatio" -> generator.setErrorRatio(Double.parseDouble(value));
+                case "malformedRatio" -> generator.setMalformedRatio(Double.parseDouble(value));
+                case "requestsPerSecond" -> generator.setRequestsPerSecond(Integer.parseInt(value));
+                case "start" -> generator.setStart(LocalDateTime.parse(value));
+                case "seed" -> generator.setSeed(Long.parseLong(value));
+                case "zipped" -> generator.setZipped(Boolean.parseBoolean(value));
+                case "memberLines" -> generator.setMemberLines(Long.parseLong(value));
+                default -> throw new IllegalArgumentException("Unknown option: " + option[0]);
+            }
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("The --output option is required");
+        }
+
+        long startTime = System.nanoTime();
+        long written = generator.write(output);
+        logger.info("Generated {} lines in {} in {} s", written, output, (System.nanoTime() - startTime) / 1_000_000_000.0);
+    }
+
+    /**
+     * @param value A number of bytes, with an optional K, M or G suffix
+     * @return The number of bytes
+     */
+    static long parseSize(String value) {
+        String size = value.trim().toUpperCase(Locale.ROOT);
+        long multiplier = switch (size.isEmpty() ? ' ' : size.charAt(size.length() - 1)) {
+            case 'K' -> 1L << 10;
+            case 'M' -> 1L << 20;
+            case 'G' -> 1L << 30;
+            default -> 1L;
+        };
+        return Long.parseLong(multiplier == 1 ? size : size.substring(0, size.length() - 1)) * multiplier;
+    }
+}
@@ -0,0 +1,210 @@
+package logParser.util;
+
+import logParser.dataModel.CheckpointEntity;
+import logParser.dataModel.RequestEntity;
+import logParser.domainModel.FileProgress;
+import logParser.domainModel.StatisticsContainer;
+import logParser.repository.CheckpointRepository;
+import logParser.repository.RequestBulkRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parses and stores a set of log files, several of them at a time. Each file is aggregated into its own
+ * StatisticsContainer, which is merged into the shared statistics once the file has been read, so that the files
+ * never wait for each other.
+ * <p>
+ * Every batch of requests is committed together with a checkpoint of its file, so that an interrupted ingest resumes
+ * after the last committed batch of each file, and files that have already been ingested are skipped.
+ */
+@Component
+public class LogIngester {
+    private static final Logger logger = LogManager.getLogger(LogIngester.class);
+
+    @Autowired
+    private LogParser parser;
+
+    @Autowired
+    private RequestBulkRepository requestBulkRepository;
+
+    @Autowired
+    private CheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StatisticsAggregator aggregator;
+
+    @Autowired
+    private RequestColumns columns = new RequestColumns();
+
+    @Value("${logParser.ingest.batch.size:10000}")
+    private Integer batchSize;
+
+    /**
+     * The number of files ingested at a time, 0 for one per available processor
+     */
+    @Value("${logParser.ingest.files.parallelism:0}")
+    private Integer filesParallelism;
+
+    /**
+     * The progress of every file, by path
+     */
+    private final Map<String, FileProgress> progress = new ConcurrentHashMap<>();
+
+    /**
+     * Parses the given files, storing their requests in the H2 database and merging their statistics into the
+     * aggregator. A file that fails is logged and skipped, without affecting the others. Files with a checkpoint are
+     * only parsed after their last committed line, so the statistics of the requests stored before that must already
+     * have been accepted by the aggregator.
+     * @param files The paths of the log files
+     * @return The total number of lines that were read
+     */
+    public long ingest(List<Path> files) {
+        List<FileProgress> fileProgress = new ArrayList<>(files.size());
+        List<CheckpointEntity> checkpoints = new ArrayList<>(files.size());
+        for (Path file : files) {
+            FileProgress entry = new FileProgress(file.toString(), size(file));
+            progress.put(entry.getFile(), entry);
+            fileProgress.add(entry);
+            // Every file is registered before any of them is parsed, so that an interrupted ingest is never mistaken
+            // for a finished one
+            CheckpointEntity checkpoint = checkpointRepository.findById(entry.getFile()).orElse(null);
+            if (checkpoint == null) {
+                checkpoint = new CheckpointEntity(entry.getFile());
+                requestBulkRepository.saveAll(List.of(), checkpoint);
+            }
+            checkpoints.add(checkpoint);
+        }
+
+        int workers = Math.min(files.size(), filesParallelism > 0 ? filesParallelism : Runtime.getRuntime().availableProcessors());
+        if (workers <= 1) {
+            long lines = 0;
+            for (int i = 0; i < files.size(); i++) {
+                lines += ingestFile(files.get(i), checkpoints.get(i), fileProgress.get(i), 1);
+            }
+            return lines;
+        }
+
+        ThreadFactory threadFactory = Thread.ofPlatform().name("log-ingester-", 1).factory();
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers, threadFactory)) {
+            List<Future<Long>> results = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                CheckpointEntity checkpoint = checkpoints.get(i);
+                FileProgress entry = fileProgress.get(i);
+                // The files in flight share the parsing and unzipping threads, instead of starting a full pool each
+                results.add(executor.submit(() -> ingestFile(file, checkpoint, entry, workers)));
+            }
+
+            long lines = 0;
+            for (Future<Long> result : results) {
+                try {
+                    lines += result.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    results.forEach(f -> f.cancel(true));
+                    logger.error("LogIngester Error: interrupted while waiting for the log files to be ingested");
+                    break;
+                } catch (ExecutionException ex) {
+                    logger.error("LogIngester Error: ", ex.getCause());
+                }
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * @return The progress of every file given to {@link #ingest(List)} so far
+     */
+    public Collection<FileProgress> getProgress() {
+        return progress.values().stream().sorted(Comparator.comparing(FileProgress::getFile)).toList();
+    }
+
+    /**
+     * Parses and stores a single file after its last checkpoint, merging its statistics into the aggregator when done.
+     * The requests read before a failure are still stored and counted, so that the statistics always match the
+     * database.
+     * @param file The path of the log file
+     * @param checkpoint The last checkpoint of the file
+     * @param fileProgress The progress of the file, updated after each batch
+     * @param concurrentFiles The number of files ingested at the same time, including this one
+     * @return The number of lines that were read
+     */
+    private long ingestFile(Path file, CheckpointEntity checkpoint, FileProgress fileProgress, int concurrentFiles) {
+        fileProgress.start();
+        if (checkpoint.isComplete()) {
+            logger.info("Skipping {}, which has already been stored in H2 database", file);
+            fileProgress.finish(checkpoint.getLineNumber(), true);
+            return 0;
+        }
+        if (checkpoint.getLineNumber() > 0) {
+            logger.info("Resuming {} after line {} ...", file, checkpoint.getLineNumber());
+        } else {
+            logger.info("Parsing {} and storing requests in H2 database ...", file);
+        }
+
+        StatisticsContainer statistics = aggregator.createContainer();
+        List<RequestEntity> batch = new ArrayList<>(batchSize);
+        AtomicReference<CheckpointEntity> reached = new AtomicReference<>(checkpoint);
+        boolean succeeded = false;
+        try {
+            parser.parseFile(file, checkpoint.getLineNumber(), concurrentFiles, req -> {
+                StatisticsCalculator.addRequest(statistics, req);
+                batch.add(req);
+                if (batch.size() >= batchSize) {
+                    reached.set(storeBatch(batch, reached.get(), false));
+                    fileProgress.update(reached.get().getLineNumber());
+                }
+            });
+            succeeded = true;
+        } catch (IOException | RuntimeException ex) {
+            logger.error("LogIngester Error: could not ingest {}", file, ex);
+        } finally {
+            reached.set(storeBatch(batch, reached.get(), succeeded));
+            aggregator.merge(statistics);
+            fileProgress.finish(reached.get().getLineNumber(), succeeded);
+        }
+
+        long lines = statistics.getAllRequests();
+        logger.info("Stored {} requests from {} in H2 database in {} s ({} requests/s)", lines, file,
+                String.format(Locale.US, "%.3f", fileProgress.getSeconds()),
+                Math.round(lines / Math.max(fileProgress.getSeconds(), 1e-9)));
+        return lines;
+    }
+
+    /**
+     * Persists the given batch of requests together with the checkpoint reached after it, appends it to the in-memory
+     * columns, and empties the batch, so that it can be refilled
+     * @param batch A List of parsed requests that have not been stored yet
+     * @param checkpoint The checkpoint reached before the batch
+     * @param complete Whether the batch ends the file
+     * @return The checkpoint reached after the batch
+     */
+    private CheckpointEntity storeBatch(List<RequestEntity> batch, CheckpointEntity checkpoint, boolean complete) {
+        if (batch.isEmpty() && !complete) {
+            return checkpoint;
+        }
+        CheckpointEntity next = checkpoint.advance(batch.size(), complete);
+        requestBulkRepository.saveAll(batch, next);
+        columns.appendAll(batch);
+        batch.clear();
+        return next;
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package logParser.util;
+
+/**
+ * Hand-written scanner for lines in Common Log Format, e.g.
+ * <pre>in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] "GET /shuttle/missions/sts-68/news/sts-68-mcc-05.txt HTTP/1.0" 200 1839</pre>
+ * It walks the line once and records the start and end index of each field, without compiling or backtracking
+ * like a regular expression would. It accepts exactly the lines accepted by the regular expression used in
+ * {@link LogParser}, starting at the beginning of the line; any line it rejects should be handed over to the
+ * regular expression instead.
+ */
+public final class LogLineTokenizer {
+    public static final int HOST = 0;
+    public static final int TIMESTAMP = 1;
+    public static final int HTTP_VERB = 2;
+    public static final int RESOURCE = 3;
+    public static final int PROTOCOL = 4;
+    public static final int RESPONSE_CODE = 5;
+    public static final int TRAILER = 6;
+
+    /**
+     * The length of the offsets array expected by {@link #tokenize(CharSequence, int[])}
+     */
+    public static final int OFFSETS_LENGTH = 14;
+
+    private LogLineTokenizer() {
+    }
+
+    /**
+     * Scans a single line and stores the start (inclusive) and end (exclusive) index of each field in offsets,
+     * at positions 2 * field and 2 * field + 1 respectively
+     * @param line A single line of the log file
+     * @param offsets An array of at least {@link #OFFSETS_LENGTH} ints, overwritten with the field offsets
+     * @return True if the line is well-formed, false if it should be parsed by other means
+     */
+    public static boolean tokenize(CharSequence line, int[] offsets) {
+        int length = line.length();
+        int i = 0;
+
+        while (i < length && !isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (i == 0) {
+            return false;
+        }
+        mark(offsets, HOST, 0, i);
+
+        if (i + 6 > length || !isWhitespace(line.charAt(i)) || line.charAt(i + 1) != '-' || !isWhitespace(line.charAt(i + 2))
+                || line.charAt(i + 3) != '-' || !isWhitespace(line.charAt(i + 4)) || line.charAt(i + 5) != '[') {
+            return false;
+        }
+        i += 6;
+
+        int start = i;
+        while (i < length && line.charAt(i) != ']') {
+            i++;
+        }
+        if (i == start || i + 2 >= length || !isWhitespace(line.charAt(i + 1)) || line.charAt(i + 2) != '"') {
+            return false;
+        }
+        mark(offsets, TIMESTAMP, start, i);
+        i += 3;
+
+        start = i;
+        while (i < length && line.charAt(i) >= 'A' && line.charAt(i) <= 'Z') {
+            i++;
+        }
+        if (i == start || i >= length || !isWhitespace(line.charAt(i))) {
+            return false;
+        }
+        mark(offsets, HTTP_VERB, start, i);
+        i++;
+
+        start = i;
+        while (i < length && !isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (i == start || i >= length) {
+            return false;
+        }
+        mark(offsets, RESOURCE, start, i);
+        i++;
+
+        start = i;
+        while (i < length && line.charAt(i) != '"') {
+            i++;
+        }
+        if (i == start || i + 1 >= length || !isWhitespace(line.charAt(i + 1))) {
+            return false;
+        }
+        mark(offsets, PROTOCOL, start, i);
+        i += 2;
+
+        start = i;
+        while (i < length && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == start || i >= length || !isWhitespace(line.charAt(i))) {
+            return false;
+        }
+        mark(offsets, RESPONSE_CODE, start, i);
+        i++;
+
+        start = i;
+        while (i < length && !isLineTerminator(line.charAt(i))) {
+            i++;
+        }
+        // A line terminator inside the trailer would let the regular expression match more than once
+        if (i == start || i != length) {
+            return false;
+        }
+        mark(offsets, TRAILER, start, i);
+        return true;
+    }
+
+    private static void mark(int[] offsets, int field, int start, int end) {
+        offsets[2 * field] = start;
+        offsets[2 * field + 1] = end;
+    }
+
+    /**
+     * Same character class as \s in java.util.regex
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Characters that are not matched by . in java.util.regex
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
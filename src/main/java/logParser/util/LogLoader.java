@@ -2,17 +2,20 @@ package logParser.util;
 
 import lombok.NoArgsConstructor;
 import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Component
 @NoArgsConstructor
@@ -37,32 +40,69 @@ public class LogLoader {
 
     private static final Logger logger = LogManager.getLogger(LogLoader.class);
 
-    public byte[] loadLogs() {
-        byte[] bytes = null;
+    /**
+     * Returns the local log files, downloading them via FTP first if none exist. Both paths may point to a single file,
+     * a directory, or a glob pattern on the file name (e.g. /traces/NASA_access_log_*.gz), and each local file may
+     * either be zipped or uncompressed.
+     * @return The paths of the local log files sorted by name, empty if no file could be retrieved
+     */
+    public List<Path> retrieveLogs() {
+        List<Path> localFiles = findLocalLogs();
+        if (localFiles.isEmpty()) {
+            downloadLogs();
+            localFiles = findLocalLogs();
+        }
+        return localFiles;
+    }
+
+    /**
+     * Lists the local log files matching the configured local path
+     * @return The paths of the local log files sorted by name, empty if there are none
+     */
+    private List<Path> findLocalLogs() {
+        String[] glob = splitGlob(localPath);
+        Path path = Path.of(glob != null ? glob[0] : localPath);
+        if (glob == null && !Files.isDirectory(path)) {
+            return Files.isRegularFile(path) ? List.of(path) : List.of();
+        }
+        if (!Files.isDirectory(path)) {
+            return List.of();
+        }
+
+        PathMatcher matcher = glob != null ? FileSystems.getDefault().getPathMatcher("glob:" + glob[1]) : null;
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith("."))
+                    .filter(file -> matcher == null || matcher.matches(file.getFileName()))
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            logger.error("LogLoader Error: ", ex);
+        }
+        return List.of();
+    }
 
+    /**
+     * Downloads every remote log file matching the configured remote path via FTP, skipping the ones that already
+     * exist locally
+     */
+    private void downloadLogs() {
         FTPClient ftpClient = new FTPClient();
         try {
-
             ftpClient.connect(server, port);
 
             ftpClient.login(user, pass);
             ftpClient.enterLocalPassiveMode();
             ftpClient.setFileType(FTPClient.BINARY_FILE_TYPE);
 
-            File localFile = new File(localPath);
-            InputStream inputStream;
-            if(!localFile.exists()) {
-                inputStream = ftpClient.retrieveFileStream(remotePath);
-                inputStream.close();
-
-                Files.copy(inputStream, localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            List<String> remoteFiles = listRemoteLogs(ftpClient);
+            boolean singleFile = remoteFiles.size() == 1 && remoteFiles.getFirst().equals(remotePath);
+            for (String remoteFile : remoteFiles) {
+                File localFile = localTarget(remoteFile, singleFile);
+                if (!localFile.exists()) {
+                    downloadLog(ftpClient, remoteFile, localFile);
+                }
             }
-            inputStream = new FileInputStream(localPath);
-
-            bytes = inputStream.readAllBytes();
-
-            inputStream.close();
-
         } catch (IOException ex) {
             logger.error("LogLoader Error: ", ex);
         } finally {
@@ -75,7 +115,96 @@ public class LogLoader {
                 logger.error("LogLoader Error: ", ex);
             }
         }
+    }
+
+    /**
+     * Lists the remote log files matching the configured remote path
+     * @param ftpClient A connected FTPClient
+     * @return The full remote paths of the matching files, sorted by name
+     * @throws IOException If the remote directory could not be listed
+     */
+    private List<String> listRemoteLogs(FTPClient ftpClient) throws IOException {
+        String[] glob = splitGlob(remotePath);
+        if (glob != null) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob[1]);
+            return Arrays.stream(ftpClient.listFiles(glob[0]))
+                    .filter(FTPFile::isFile)
+                    .map(FTPFile::getName)
+                    .filter(name -> matcher.matches(Path.of(name)))
+                    .sorted()
+                    .map(name -> glob[0] + "/" + name)
+                    .toList();
+        }
+        if (ftpClient.changeWorkingDirectory(remotePath)) {
+            return Arrays.stream(ftpClient.listFiles())
+                    .filter(FTPFile::isFile)
+                    .map(file -> remotePath + "/" + file.getName())
+                    .sorted()
+                    .toList();
+        }
+        return List.of(remotePath);
+    }
+
+    /**
+     * Selects the local file where a remote log file will be stored
+     * @param remoteFile The full remote path of the file
+     * @param singleFile True if the remote path points to a single file
+     * @return The configured local file for a single file stored locally as a single file, otherwise a file with the
+     * same name inside the configured local directory
+     */
+    private File localTarget(String remoteFile, boolean singleFile) {
+        String[] glob = splitGlob(localPath);
+        if (glob == null && singleFile && !Files.isDirectory(Path.of(localPath))) {
+            return new File(localPath);
+        }
+        return new File(glob != null ? glob[0] : localPath, remoteFile.substring(remoteFile.lastIndexOf('/') + 1));
+    }
+
+    /**
+     * Splits a path whose file name is a glob pattern into its directory and pattern
+     * @param path A local or remote path
+     * @return The directory and the pattern, or null if the file name is not a glob pattern
+     */
+    private static String[] splitGlob(String path) {
+        int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        String name = path.substring(separator + 1);
+        if (name.chars().noneMatch(c -> c == '*' || c == '?' || c == '[' || c == '{')) {
+            return null;
+        }
+        return new String[]{separator < 0 ? "." : separator == 0 ? "/" : path.substring(0, separator), name};
+    }
+
+    /**
+     * Downloads a remote log file via FTP and stores it in the given local file
+     * @param ftpClient A connected FTPClient
+     * @param remoteFile The full remote path of the file
+     * @param localFile The file where the downloaded logs will be stored
+     * @return True if the file was downloaded successfully
+     */
+    private boolean downloadLog(FTPClient ftpClient, String remoteFile, File localFile) {
+        boolean downloaded = false;
+
+        try {
+            Path parent = localFile.toPath().toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(localFile))) {
+                downloaded = ftpClient.retrieveFile(remoteFile, outputStream);
+            }
+            if (!downloaded) {
+                logger.error("LogLoader Error: could not retrieve {}, server replied: {}", remoteFile, ftpClient.getReplyString());
+                Files.deleteIfExists(localFile.toPath());
+            }
+        } catch (IOException ex) {
+            logger.error("LogLoader Error: ", ex);
+            try {
+                Files.deleteIfExists(localFile.toPath());
+            } catch (IOException e) {
+                logger.error("LogLoader Error: ", e);
+            }
+        }
 
-        return bytes;
+        return downloaded;
     }
 }
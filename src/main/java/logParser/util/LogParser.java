@@ -3,10 +3,20 @@ package logParser.util;
 import logParser.dataModel.RequestEntity;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.regex.*;
 import java.util.zip.GZIPInputStream;
 
@@ -14,6 +24,134 @@ import java.util.zip.GZIPInputStream;
 public class LogParser {
     private static final Logger logger = LogManager.getLogger(LogParser.class);
 
+    private static final Pattern LOG_ENTRY_PATTERN =
+            Pattern.compile("([^\\s]+)\\s-\\s-\\s\\[([^\\]]+)\\]\\s\"([A-Z]+)\\s([^\\s]+)\\s([^\"]+)\"\\s([0-9]+)\\s(.+)");
+
+    /**
+     * The available implementations for parsing a single line
+     */
+    public enum Engine {
+        /**
+         * Hand-written scanner, falling back to the regular expression for lines it cannot handle
+         */
+        SCANNER,
+        /**
+         * Regular expression only
+         */
+        REGEX
+    }
+
+    @Autowired
+    private LogDictionary dictionary = new LogDictionary();
+
+    @Value("${logParser.parser.engine:SCANNER}")
+    private Engine engine = Engine.SCANNER;
+
+    /**
+     * The number of worker threads that parse lines, 0 for one per available processor, 1 for parsing on the reading
+     * thread
+     */
+    @Value("${logParser.parser.parallelism:0}")
+    private Integer parallelism = 1;
+
+    /**
+     * The number of lines handed over to a worker thread at a time
+     */
+    @Value("${logParser.parser.batch.lines:8192}")
+    private Integer batchLines = 8192;
+
+    /**
+     * The number of bytes of an uncompressed file handed over to a worker thread at a time
+     */
+    @Value("${logParser.parser.region.bytes:1048576}")
+    private Integer regionBytes = 1 << 20;
+
+    /**
+     * Whether zipped files made of several gzip members are decompressed on a pool of threads, when parsing in
+     * parallel
+     */
+    @Value("${logParser.parser.inflate.parallel:true}")
+    private Boolean parallelInflate = true;
+
+    /**
+     * The lines of a region of an uncompressed file, parsed by a worker thread
+     * @param requests One RequestEntity per line, in file order
+     * @param rejectedLines The content of the lines that did not pass validation, by their index in requests
+     */
+    private record ParsedRegion(List<RequestEntity> requests, Map<Integer, String> rejectedLines) {
+    }
+
+    /**
+     * Parses a local log file, which may either be zipped or uncompressed. Uncompressed files are memory-mapped and
+     * parsed in place, without copying their contents into the heap first.
+     * @param file The path of the log file
+     * @param sink A Consumer that receives each line as a RequestEntity, in file order
+     * @return The number of lines that were read
+     * @throws IOException If the file could not be read
+     */
+    public long parseFile(Path file, Consumer<RequestEntity> sink) throws IOException {
+        return parseFile(file, 0, sink);
+    }
+
+    /**
+     * Parses a local log file after skipping its first lines, e.g. to resume an interrupted ingest. The skipped lines
+     * are only split, not parsed: uncompressed files are scanned for line terminators, while zipped files still have to
+     * be unzipped up to that point.
+     * @param file The path of the log file
+     * @param skipLines The number of lines to skip
+     * @param sink A Consumer that receives each line after the skipped ones as a RequestEntity, in file order
+     * @return The number of lines that were read after the skipped ones
+     * @throws IOException If the file could not be read
+     */
+    public long parseFile(Path file, long skipLines, Consumer<RequestEntity> sink) throws IOException {
+        return parseFile(file, skipLines, 1, sink);
+    }
+
+    /**
+     * Parses a local log file after skipping its first lines, while other files are parsed at the same time. The
+     * configured parallelism is shared between the files, so that parsing several files at a time never starts more
+     * parsing or unzipping threads than parsing a single one.
+     * @param file The path of the log file
+     * @param skipLines The number of lines to skip
+     * @param concurrentFiles The number of files parsed at the same time, including this one
+     * @param sink A Consumer that receives each line after the skipped ones as a RequestEntity, in file order
+     * @return The number of lines that were read after the skipped ones
+     * @throws IOException If the file could not be read
+     */
+    public long parseFile(Path file, long skipLines, int concurrentFiles, Consumer<RequestEntity> sink)
+            throws IOException {
+        int workers = Math.max(1, workers() / Math.max(1, concurrentFiles));
+        if (isZipped(file)) {
+            if (workers > 1 && parallelInflate) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                     InputStream unzipped = new ParallelGZIPInputStream(channel, workers)) {
+                    return readLines(unzipped, skipLines, workers, sink);
+                }
+            }
+            try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file), 65536);
+                 InputStream unzipped = new GZIPInputStream(inputStream, 65536)) {
+                return readLines(unzipped, skipLines, workers, sink);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedLogReader reader = new MappedLogReader(channel, regionBytes);
+            return parseMappedLines(reader, reader.skipLines(skipLines), workers, sink);
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the two bytes that identify the gzip format
+     * @param file The path of the file
+     * @return True if the file is zipped
+     * @throws IOException If the file could not be read
+     */
+    private static boolean isZipped(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return inputStream.read() == 0x1f && inputStream.read() == 0x8b;
+        }
+    }
+
     /**
      * Unzips the contents of a byte array containing a zipped file
      * @param bytes A byte array containing a zipped file
@@ -22,58 +160,412 @@ public class LogParser {
     public List<RequestEntity> unZipFile(byte[] bytes) {
         List<RequestEntity> result = new ArrayList<>();
 
-        try {
-            if (bytes != null) {
-                GZIPInputStream gZIPInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes));
-                BufferedReader br = new BufferedReader(new InputStreamReader(gZIPInputStream));
-
-                String lineContent;
-                int i = 1;
-                while ((lineContent = br.readLine()) != null) {
-                    RequestEntity req = parseEntry(lineContent);
-                    validateEntry(lineContent, i, req);
-
-                    result.add(req);
-                    i++;
-                }
+        if (bytes != null) {
+            unZipStream(new ByteArrayInputStream(bytes), result::add);
+        }
 
-                gZIPInputStream.close();
+        return result;
+    }
+
+    /**
+     * Unzips a stream containing a zipped file line by line, handing each parsed line over to the given sink as soon
+     * as it has been read, so that the whole file never needs to be held in memory
+     * @param inputStream An InputStream over a zipped file
+     * @param sink A Consumer that receives each line as a RequestEntity, in file order
+     * @return The number of lines that were read
+     */
+    public long unZipStream(InputStream inputStream, Consumer<RequestEntity> sink) {
+        long lines = 0;
+
+        try {
+            if (inputStream != null) {
+                lines = unZipLines(inputStream, sink);
             }
         } catch (IOException ex) {
             logger.error("LogParser Error: ", ex);
         }
 
-        return result;
+        return lines;
+    }
+
+    /**
+     * Unzips a stream containing a zipped file line by line, handing each parsed line over to the given sink
+     * @param inputStream An InputStream over a zipped file
+     * @param sink A Consumer that receives each line as a RequestEntity, in file order
+     * @return The number of lines that were read
+     * @throws IOException If the stream could not be read or unzipped
+     */
+    private long unZipLines(InputStream inputStream, Consumer<RequestEntity> sink) throws IOException {
+        try (GZIPInputStream gZIPInputStream = new GZIPInputStream(inputStream, 65536)) {
+            return readLines(gZIPInputStream, 0, workers(), sink);
+        }
+    }
+
+    /**
+     * Reads an unzipped stream line by line, handing each parsed line after the skipped ones over to the given sink
+     * @param unzipped An InputStream over the unzipped contents of a file
+     * @param skipLines The number of lines to skip without parsing them
+     * @param workers The number of worker threads
+     * @param sink A Consumer that receives each line as a RequestEntity, in file order
+     * @return The number of lines that were read after the skipped ones
+     * @throws IOException If the stream could not be read
+     */
+    private long readLines(InputStream unzipped, long skipLines, int workers, Consumer<RequestEntity> sink)
+            throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(unzipped), 65536);
+        long skipped = 0;
+        while (skipped < skipLines && br.readLine() != null) {
+            skipped++;
+        }
+        return parseLines(br, skipped, workers, sink);
     }
 
     /**
-     * Parses a single line from the original file and translates it to a RequestEntity
+     * @return The number of worker threads, as configured by the parallelism
+     */
+    private int workers() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Parses every line read from the given reader, either on the calling thread or on a pool of worker threads,
+     * depending on the number of workers
+     * @param br A BufferedReader over the unzipped file
+     * @param skippedLines The number of lines skipped before the reader's position, used for numbering the lines
+     * @param workers The number of worker threads, 1 for parsing on the calling thread
+     * @param sink A Consumer that receives each line as a RequestEntity, in file order, on the calling thread
+     * @return The number of lines that were read
+     * @throws IOException If the lines could not be read
+     */
+    private long parseLines(BufferedReader br, long skippedLines, int workers, Consumer<RequestEntity> sink)
+            throws IOException {
+        if (workers > 1) {
+            return parseLinesInParallel(br, skippedLines, sink, workers);
+        }
+
+        long lines = skippedLines;
+        String lineContent;
+        while ((lineContent = br.readLine()) != null) {
+            lines++;
+            RequestEntity req = parseEntry(lineContent);
+            validateEntry(lineContent, lines, req);
+
+            sink.accept(req);
+        }
+        return lines - skippedLines;
+    }
+
+    /**
+     * Reads lines on the calling thread and hands them over in batches to a pool of worker threads for parsing and
+     * validation, passing the results to the sink in their original order
+     * @param br A BufferedReader over the unzipped file
+     * @param skippedLines The number of lines skipped before the reader's position, used for numbering the lines
+     * @param sink A Consumer that receives each line as a RequestEntity, in file order, on the calling thread
+     * @param workers The number of worker threads
+     * @return The number of lines that were read
+     * @throws IOException If the lines could not be read
+     */
+    private long parseLinesInParallel(BufferedReader br, long skippedLines, Consumer<RequestEntity> sink, int workers)
+            throws IOException {
+        long lines = skippedLines;
+        ThreadFactory threadFactory = Thread.ofPlatform().name("log-parser-", 1).daemon().factory();
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers, threadFactory)) {
+            OrderedTaskPipeline<List<RequestEntity>> pipeline =
+                    new OrderedTaskPipeline<>(executor, workers * 2, batch -> batch.forEach(sink));
+
+            List<String> batch = new ArrayList<>(batchLines);
+            String lineContent;
+            while ((lineContent = br.readLine()) != null) {
+                lines++;
+                batch.add(lineContent);
+                if (batch.size() >= batchLines) {
+                    pipeline.submit(parseBatch(batch, lines - batch.size() + 1));
+                    batch = new ArrayList<>(batchLines);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pipeline.submit(parseBatch(batch, lines - batch.size() + 1));
+            }
+            pipeline.finish();
+        }
+        return lines - skippedLines;
+    }
+
+    /**
+     * Parses every region of an uncompressed file, either on the calling thread or on a pool of worker threads,
+     * depending on the number of workers
+     * @param reader A MappedLogReader over the uncompressed file
+     * @param skippedLines The number of lines skipped before the reader's position, used for numbering the lines
+     * @param workers The number of worker threads, 1 for parsing on the calling thread
+     * @param sink A Consumer that receives each line as a RequestEntity, in file order, on the calling thread
+     * @return The number of lines that were read
+     * @throws IOException If the file could not be mapped
+     */
+    private long parseMappedLines(MappedLogReader reader, long skippedLines, int workers, Consumer<RequestEntity> sink)
+            throws IOException {
+        AtomicLong lines = new AtomicLong(skippedLines);
+        Consumer<ParsedRegion> regionSink = region -> lines.addAndGet(emitRegion(region, lines.get(), sink));
+
+        ByteBuffer region;
+        if (workers > 1) {
+            ThreadFactory threadFactory = Thread.ofPlatform().name("log-parser-", 1).daemon().factory();
+            try (ExecutorService executor = Executors.newFixedThreadPool(workers, threadFactory)) {
+                OrderedTaskPipeline<ParsedRegion> pipeline = new OrderedTaskPipeline<>(executor, workers * 2, regionSink);
+                while ((region = reader.nextRegion()) != null) {
+                    ByteBuffer current = region;
+                    pipeline.submit(() -> parseRegion(current));
+                }
+                pipeline.finish();
+            }
+        } else {
+            while ((region = reader.nextRegion()) != null) {
+                regionSink.accept(parseRegion(region));
+            }
+        }
+        return lines.get() - skippedLines;
+    }
+
+    /**
+     * Parses a buffer of whole lines in place on the calling thread, e.g. the lines appended to a file that is being
+     * followed
+     * @param buffer A ByteBuffer over whole lines, starting at index 0
+     * @param skippedLines The number of lines before the buffer, used for numbering the lines
+     * @param sink A Consumer that receives each line as a RequestEntity, in order
+     * @return The number of lines that were read
+     */
+    public int parseBuffer(ByteBuffer buffer, long skippedLines, Consumer<RequestEntity> sink) {
+        return emitRegion(parseRegion(buffer), skippedLines, sink);
+    }
+
+    /**
+     * Validates the lines of a parsed region and hands them over to the sink
+     * @param region A parsed region
+     * @param previousLines The number of lines before the region, used for numbering the lines
+     * @param sink A Consumer that receives each line as a RequestEntity, in order
+     * @return The number of lines in the region
+     */
+    private int emitRegion(ParsedRegion region, long previousLines, Consumer<RequestEntity> sink) {
+        long firstLine = previousLines + 1;
+        region.rejectedLines().forEach((index, lineContent) ->
+                validateEntry(lineContent, firstLine + index, region.requests().get(index)));
+        region.requests().forEach(sink);
+        return region.requests().size();
+    }
+
+    /**
+     * Splits a region of an uncompressed file into lines and parses each of them in place, like
+     * {@link BufferedReader#readLine()} would split them
+     * @param region A ByteBuffer over whole lines
+     * @return The parsed lines, with the content of any line that did not pass validation
+     */
+    private ParsedRegion parseRegion(ByteBuffer region) {
+        List<RequestEntity> requests = new ArrayList<>();
+        Map<Integer, String> rejectedLines = new HashMap<>();
+        ByteSequence line = new ByteSequence(region);
+
+        int limit = region.limit();
+        int position = 0;
+        while (position < limit) {
+            int end = position;
+            byte b;
+            while (end < limit && (b = region.get(end)) != '\n' && b != '\r') {
+                end++;
+            }
+
+            RequestEntity req = parseLine(line.reset(position, end));
+            if (!isValid(req)) {
+                rejectedLines.put(requests.size(), line.toString());
+            }
+            requests.add(req);
+
+            position = end + 1;
+            if (end < limit && region.get(end) == '\r' && position < limit && region.get(position) == '\n') {
+                position++;
+            }
+        }
+        return new ParsedRegion(requests, rejectedLines);
+    }
+
+    /**
+     * Creates a task that parses and validates a batch of consecutive lines
+     * @param batch The lines to parse
+     * @param firstLine The line number of the first line in the batch
+     * @return A task returning one RequestEntity per line, in the same order
+     */
+    private Callable<List<RequestEntity>> parseBatch(List<String> batch, long firstLine) {
+        return () -> {
+            List<RequestEntity> result = new ArrayList<>(batch.size());
+            long line = firstLine;
+            for (String lineContent : batch) {
+                RequestEntity req = parseEntry(lineContent);
+                validateEntry(lineContent, line++, req);
+                result.add(req);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Parses a single line from the original file and translates it to a RequestEntity, whose values are encoded
+     * with the dictionary
+     * @param input A string containing a single request
+     * @return A RequestEntity containing the request parameters
+     */
+    public RequestEntity parseEntry(String input) {
+        return parseLine(input);
+    }
+
+    /**
+     * Parses a single line, which may be read in place from a buffer, and translates it to a RequestEntity, whose
+     * values are encoded with the dictionary
+     * @param input A CharSequence containing a single request
+     * @return A RequestEntity containing the request parameters
+     */
+    private RequestEntity parseLine(CharSequence input) {
+        if (engine == Engine.SCANNER) {
+            int[] offsets = new int[LogLineTokenizer.OFFSETS_LENGTH];
+            if (LogLineTokenizer.tokenize(input, offsets)) {
+                RequestEntity request = new RequestEntity(
+                        field(input, offsets, LogLineTokenizer.HOST),
+                        field(input, offsets, LogLineTokenizer.HTTP_VERB),
+                        field(input, offsets, LogLineTokenizer.RESOURCE),
+                        parseResponseCode(input, offsets[2 * LogLineTokenizer.RESPONSE_CODE],
+                                offsets[2 * LogLineTokenizer.RESPONSE_CODE + 1]),
+                        parseTimestamp(input, offsets[2 * LogLineTokenizer.TIMESTAMP],
+                                offsets[2 * LogLineTokenizer.TIMESTAMP + 1]));
+                parseTrailer(input, offsets[2 * LogLineTokenizer.TRAILER], offsets[2 * LogLineTokenizer.TRAILER + 1], request);
+                return dictionary.encode(request);
+            }
+        }
+
+        return dictionary.encode(matchEntry(input.toString()));
+    }
+
+    /**
+     * Parses a single line from the original file using a regular expression
      * @param input A string containing a single request
      * @return A RequestEntity containing the request parameters
      */
-    private RequestEntity parseEntry(String input) {
-        String logEntryPattern = "([^\\s]+)\\s-\\s-\\s\\[[^\\]]+\\]\\s\"([A-Z]+)\\s([^\\s]+)\\s([^\"]+)\"\\s([0-9]+)\\s(.+)";
-        Pattern p = Pattern.compile(logEntryPattern);
-        Matcher matcher = p.matcher(input);
+    private RequestEntity matchEntry(String input) {
+        Matcher matcher = LOG_ENTRY_PATTERN.matcher(input);
 
         RequestEntity model = new RequestEntity();
         while (matcher.find()) {
             model.setHost(matcher.group(1));
-            model.setHttpVerb(matcher.group(2));
-            model.setResource(matcher.group(3));
-            model.setResponseCode(matcher.group(5));
+            model.setTimestamp(parseTimestamp(input, matcher.start(2), matcher.end(2)));
+            model.setHttpVerb(matcher.group(3));
+            model.setResource(matcher.group(4));
+            model.setResponseCode(parseResponseCode(input, matcher.start(6), matcher.end(6)));
+            parseTrailer(input, matcher.start(7), matcher.end(7), model);
         }
 
         return model;
     }
 
+    /**
+     * Extracts a single field from a line that has already been tokenized
+     * @param input A CharSequence containing a single request
+     * @param offsets The field offsets filled by {@link LogLineTokenizer#tokenize(CharSequence, int[])}
+     * @param field The index of the field, as defined in LogLineTokenizer
+     * @return The text of the field
+     */
+    private static String field(CharSequence input, int[] offsets, int field) {
+        return input.subSequence(offsets[2 * field], offsets[2 * field + 1]).toString();
+    }
+
+    /**
+     * Converts a timestamp to milliseconds since the epoch, without creating an intermediate String
+     * @param input A CharSequence containing a single request
+     * @param start The index of the first character inside the brackets
+     * @param end The index of the closing bracket
+     * @return The timestamp, or null if it is not in the Common Log Format
+     */
+    private static Long parseTimestamp(CharSequence input, int start, int end) {
+        long timestamp = ClfTimestamp.parse(input, start, end);
+        return timestamp == ClfTimestamp.INVALID ? null : timestamp;
+    }
+
+    /**
+     * Converts the digits of a response code to a number, without creating an intermediate String
+     * @param input A CharSequence containing a single request
+     * @param start The index of the first digit
+     * @param end The index after the last digit
+     * @return The response code, or null if it has too many digits to be a valid response code
+     */
+    private static Integer parseResponseCode(CharSequence input, int start, int end) {
+        if (end - start > 9) {
+            return null;
+        }
+        int responseCode = 0;
+        for (int i = start; i < end; i++) {
+            responseCode = responseCode * 10 + (input.charAt(i) - '0');
+        }
+        return responseCode;
+    }
+
+    /**
+     * Converts the fields after the response code to the number of bytes and the response time of a request, without
+     * creating intermediate Strings. The number of bytes is the first field, and the response time the second one in
+     * the extended format; anything else, like the referrer and user agent of the combined format, is ignored.
+     * @param input A CharSequence containing a single request
+     * @param start The index of the first character after the response code and its separator
+     * @param end The index after the last character of the line
+     * @param request The RequestEntity whose bytes and responseTime will be set, left null if not numeric
+     */
+    private static void parseTrailer(CharSequence input, int start, int end, RequestEntity request) {
+        int i = start;
+        while (i < end && !Character.isWhitespace(input.charAt(i))) {
+            i++;
+        }
+        request.setBytes(parseNumber(input, start, i));
+
+        while (i < end && Character.isWhitespace(input.charAt(i))) {
+            i++;
+        }
+        start = i;
+        while (i < end && !Character.isWhitespace(input.charAt(i))) {
+            i++;
+        }
+        request.setResponseTime(parseNumber(input, start, i));
+    }
+
+    /**
+     * Converts a field made only of digits to a number
+     * @return The number, or null if the field is empty, has too many digits or isn't made of digits, e.g.
+     * <code>-</code> for no bytes
+     */
+    private static Long parseNumber(CharSequence input, int start, int end) {
+        if (end == start || end - start > 18) {
+            return null;
+        }
+        long number = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    /**
+     * Checks whether a RequestEntity passes every check of {@link #validateEntry(String, long, RequestEntity)}
+     * @param req The RequestEntity that has already been parsed
+     * @return True if no warning would be logged for it
+     */
+    private static boolean isValid(RequestEntity req) {
+        return req.validFieldsExist() && req.isHostValid() && req.isHttpVerbValid() && req.isResourceValid()
+                && req.isResponseCodeValid();
+    }
+
     /**
      * Validates the RequestEntity that has been parsed from the input
      * @param lineContent The original content of a single line
      * @param line The line number
      * @param req The RequestEntity that has already been parsed
      */
-    private void validateEntry(String lineContent, Integer line, RequestEntity req) {
+    private void validateEntry(String lineContent, long line, RequestEntity req) {
         if (!req.validFieldsExist()) {
             logger.warn("Line: {}}, Request could not be parsed, Request string: {}", line, lineContent);
         }
@@ -0,0 +1,162 @@
+package logParser.util;
+
+/**
+ * Counts non-negative long values in logarithmic buckets, like an HdrHistogram: the values below 2^SUB_BUCKET_BITS
+ * have a bucket each, and every following power of 2 is split into 2^SUB_BUCKET_BITS buckets of equal width. Any
+ * value up to Long.MAX_VALUE is counted in one of {@link #BUCKETS} buckets, and percentiles are reported within
+ * 1 / 2^SUB_BUCKET_BITS, about 3%, of the recorded values.
+ * <p>
+ * Only the range of buckets between the lowest and the highest value recorded is allocated, so a histogram of values
+ * that stay within a few powers of 2, like the sizes of a single resource, takes a few hundred bytes, and never more
+ * than 4 bytes per bucket. Histograms are merged by adding their buckets, which gives the same histogram as recording
+ * all the values in a single one.
+ */
+public class LongHistogram {
+    /**
+     * The number of bits of a value that select its bucket within its power of 2
+     */
+    public static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets covering every non-negative long
+     */
+    public static final int BUCKETS = (64 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * The counts of the buckets from firstBucket on
+     */
+    private int[] counts = EMPTY;
+    private int firstBucket = 0;
+    private long count = 0;
+    private long max = -1;
+
+    /**
+     * Counts a value
+     * @param value A value, which must not be negative
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Counts a value several times
+     * @param value A value, which must not be negative
+     * @param times The number of times the value is counted
+     */
+    public void record(long value, int times) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        int bucket = bucketOf(value);
+        ensureRange(bucket, bucket);
+        counts[bucket - firstBucket] += times;
+        count += times;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every value counted by another histogram to this one, leaving it unchanged
+     * @param other A LongHistogram
+     */
+    public void merge(LongHistogram other) {
+        if (other.count == 0) {
+            return;
+        }
+        ensureRange(other.firstBucket, other.firstBucket + other.counts.length - 1);
+        int offset = other.firstBucket - firstBucket;
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[offset + i] += other.counts[i];
+        }
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return The number of values counted
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The highest value counted, or -1 if no values have been counted
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Finds the value below or at which the given percentage of the counted values are
+     * @param percentile A percentage from 0 to 100
+     * @return The highest value of the bucket holding the percentile, never above the highest value counted, or -1 if
+     * no values have been counted
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(firstBucket + i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @param value A non-negative value
+     * @return The index of the bucket counting the value
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        // The highest SUB_BUCKET_BITS + 1 bits of the value, from SUB_BUCKETS to 2 * SUB_BUCKETS - 1
+        int mantissa = (int) (value >>> shift);
+        return ((shift + 1) << SUB_BUCKET_BITS) + mantissa - SUB_BUCKETS;
+    }
+
+    /**
+     * @param bucket The index of a bucket
+     * @return The highest value counted by the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) ((bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Grows the allocated range of buckets to include the given ones
+     */
+    private void ensureRange(int from, int to) {
+        if (counts.length == 0) {
+            counts = new int[to - from + 1];
+            firstBucket = from;
+            return;
+        }
+        int last = firstBucket + counts.length - 1;
+        if (from >= firstBucket && to <= last) {
+            return;
+        }
+        // Grow by at least one power of 2 on the side that is extended, so that a widening range is not copied often
+        int newFirst = from < firstBucket ? Math.max(0, Math.min(from, firstBucket - SUB_BUCKETS)) : firstBucket;
+        int newLast = to > last ? Math.min(BUCKETS - 1, Math.max(to, last + SUB_BUCKETS)) : last;
+        int[] grown = new int[newLast - newFirst + 1];
+        System.arraycopy(counts, 0, grown, firstBucket - newFirst, counts.length);
+        counts = grown;
+        firstBucket = newFirst;
+    }
+}
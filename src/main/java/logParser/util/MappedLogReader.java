@@ -0,0 +1,136 @@
+package logParser.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads an uncompressed log file through memory-mapped ByteBuffers, so that its contents are never copied into the
+ * Java heap as a whole, and splits it into regions of whole lines that can be parsed independently of each other.
+ * Files larger than a single mapping are mapped one part at a time, each part ending at a line boundary.
+ */
+public class MappedLogReader {
+    /**
+     * The default size of a single mapping, well below the 2 GB a ByteBuffer can address
+     */
+    public static final long DEFAULT_MAPPING_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int regionSize;
+    private final long mappingSize;
+
+    private MappedByteBuffer mapping;
+    private long mappingOffset = 0;
+    private int position = 0;
+
+    /**
+     * @param channel A FileChannel over the log file, opened for reading
+     * @param regionSize The size of each region in bytes, extended up to the end of the line it ends in
+     * @throws IOException If the size of the file could not be read
+     */
+    public MappedLogReader(FileChannel channel, int regionSize) throws IOException {
+        this(channel, regionSize, DEFAULT_MAPPING_SIZE);
+    }
+
+    /**
+     * @param channel A FileChannel over the log file, opened for reading
+     * @param regionSize The size of each region in bytes, extended up to the end of the line it ends in
+     * @param mappingSize The maximum size of a single mapping in bytes
+     * @throws IOException If the size of the file could not be read
+     */
+    public MappedLogReader(FileChannel channel, int regionSize, long mappingSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.regionSize = Math.max(1, regionSize);
+        this.mappingSize = Math.min(Math.max(this.regionSize, mappingSize), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the next region of the file, which starts at the beginning of a line and ends after a line terminator
+     * or at the end of the file. Regions are independent buffers, which may be read by different threads.
+     * @return A read-only ByteBuffer over the region, or null if the whole file has been read
+     * @throws IOException If the file could not be mapped
+     */
+    public ByteBuffer nextRegion() throws IOException {
+        if (mapping == null || position >= mapping.limit()) {
+            long offset = mapping == null ? 0 : mappingOffset + position;
+            if (offset >= fileSize) {
+                return null;
+            }
+            map(offset);
+        }
+
+        int start = position;
+        int limit = mapping.limit();
+        int end = (int) Math.min((long) start + regionSize, limit);
+        while (end < limit && mapping.get(end - 1) != '\n') {
+            end++;
+        }
+        position = end;
+        return mapping.slice(start, end - start);
+    }
+
+    /**
+     * @return The offset in the file where the next region starts
+     */
+    public long getOffset() {
+        return mapping == null ? 0 : mappingOffset + position;
+    }
+
+    /**
+     * Skips the given number of lines without parsing them, counting line terminators like
+     * {@link java.io.BufferedReader#readLine()} does, so that the next region starts at the following line
+     * @param count The number of lines to skip
+     * @return The number of lines skipped, less than count if the file has fewer lines
+     * @throws IOException If the file could not be mapped
+     */
+    public long skipLines(long count) throws IOException {
+        long skipped = 0;
+        ByteBuffer region;
+        while (skipped < count && (region = nextRegion()) != null) {
+            int limit = region.limit();
+            int next = 0;
+            while (next < limit && skipped < count) {
+                int end = next;
+                byte b;
+                while (end < limit && (b = region.get(end)) != '\n' && b != '\r') {
+                    end++;
+                }
+                next = end + 1;
+                if (end < limit && region.get(end) == '\r' && next < limit && region.get(next) == '\n') {
+                    next++;
+                }
+                skipped++;
+            }
+            // Hand the rest of the region back, to be returned by the next call to nextRegion
+            if (next < limit) {
+                position -= limit - next;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Maps the part of the file starting at the given offset, cutting it after its last line feed unless it reaches
+     * the end of the file, so that no line is split between two mappings
+     */
+    private void map(long offset) throws IOException {
+        long length = Math.min(mappingSize, fileSize - offset);
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        mappingOffset = offset;
+        position = 0;
+
+        if (offset + length < fileSize) {
+            int last = mapping.limit() - 1;
+            while (last >= 0 && mapping.get(last) != '\n') {
+                last--;
+            }
+            // A line longer than a whole mapping is split, rather than never being read
+            if (last >= 0) {
+                mapping.limit(last + 1);
+            }
+        }
+    }
+}
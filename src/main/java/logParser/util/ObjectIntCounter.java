@@ -0,0 +1,196 @@
+package logParser.util;
+
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Counts occurrences per key in primitive ints, using open addressing with linear probing, so that incrementing a
+ * counter never allocates. Null is a valid key. The counts can be read through {@link #asMap()}, which boxes each
+ * value only when it is read.
+ * @param <K> The type of the counted keys
+ */
+public class ObjectIntCounter<K> implements KeyCounter<K> {
+    private static final Object NULL_KEY = new Object();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] keys;
+    private int[] counts;
+    private int size;
+
+    public ObjectIntCounter() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize The number of distinct keys expected, used to size the table
+     */
+    public ObjectIntCounter(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new Object[capacity];
+        counts = new int[capacity];
+    }
+
+    @Override
+    public int add(K key, int delta) {
+        Object k = key == null ? NULL_KEY : key;
+        int slot = find(k);
+        if (keys[slot] == null) {
+            keys[slot] = k;
+            size++;
+            counts[slot] = delta;
+            if (size * 2 > keys.length) {
+                resize();
+            }
+            return delta;
+        }
+        return counts[slot] += delta;
+    }
+
+    @Override
+    public int get(Object key) {
+        int slot = find(key == null ? NULL_KEY : key);
+        return keys[slot] == null ? 0 : counts[slot];
+    }
+
+    /**
+     * @param key A key
+     * @return True if the key has been counted
+     */
+    public boolean containsKey(Object key) {
+        return keys[find(key == null ? NULL_KEY : key)] != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Performs an action for each key and its count, in table order
+     * @param action The action to perform
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super K> action) {
+        Object[] k = keys;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != null) {
+                action.accept(k[i] == NULL_KEY ? null : (K) k[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * @return An independent copy of this counter
+     */
+    public ObjectIntCounter<K> copy() {
+        ObjectIntCounter<K> copy = new ObjectIntCounter<>(0);
+        copy.keys = keys.clone();
+        copy.counts = counts.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * @return A read-only Map view of the counts, which reflects later changes to this counter
+     */
+    @Override
+    public Map<K, Integer> asMap() {
+        return new MapView();
+    }
+
+    private int find(Object key) {
+        int mask = keys.length - 1;
+        int slot = mix(key.hashCode()) & mask;
+        Object existing;
+        while ((existing = keys[slot]) != null && existing != key && !existing.equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        Object[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new Object[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = mix(oldKeys[i].hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class MapView extends AbstractMap<K, Integer> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return ObjectIntCounter.this.containsKey(key);
+        }
+
+        @Override
+        public Integer get(Object key) {
+            return ObjectIntCounter.this.containsKey(key) ? ObjectIntCounter.this.get(key) : null;
+        }
+
+        @Override
+        public Set<Entry<K, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Entry<K, Integer>> iterator() {
+                    return new Iterator<>() {
+                        private final Object[] k = keys;
+                        private final int[] c = counts;
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < k.length && k[from] == null) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < k.length;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<K, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int slot = next;
+                            next = advance(slot + 1);
+                            return new SimpleImmutableEntry<>(k[slot] == NULL_KEY ? null : (K) k[slot], c[slot]);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package logParser.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks on an ExecutorService and hands their results over to a sink in the order the tasks were submitted.
+ * The sink is always called on the thread that submits the tasks, and the number of tasks in flight is bounded, so
+ * a fast producer blocks instead of piling up results in memory.
+ * @param <T> The type of the result produced by each task
+ */
+public class OrderedTaskPipeline<T> {
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Consumer<T> sink;
+    private final Deque<Future<T>> pending = new ArrayDeque<>();
+
+    /**
+     * @param executor The ExecutorService that will run the tasks
+     * @param maxPending The maximum number of tasks that may be submitted but not yet handed over to the sink
+     * @param sink A Consumer that receives the result of each task, in submission order
+     */
+    public OrderedTaskPipeline(ExecutorService executor, int maxPending, Consumer<T> sink) {
+        this.executor = executor;
+        this.maxPending = Math.max(1, maxPending);
+        this.sink = sink;
+    }
+
+    /**
+     * Submits a task, first handing over the results of any earlier tasks that have completed, and waiting for the
+     * oldest one if too many tasks are in flight
+     * @param task The task to run
+     * @throws IOException If an earlier task failed with an IOException, or the thread was interrupted while waiting
+     */
+    public void submit(Callable<T> task) throws IOException {
+        while (pending.size() >= maxPending || (!pending.isEmpty() && pending.peekFirst().isDone())) {
+            drain(pending.removeFirst());
+        }
+        pending.addLast(executor.submit(task));
+    }
+
+    /**
+     * Waits for all submitted tasks and hands their results over to the sink
+     * @throws IOException If a task failed with an IOException, or the thread was interrupted while waiting
+     */
+    public void finish() throws IOException {
+        while (!pending.isEmpty()) {
+            drain(pending.removeFirst());
+        }
+    }
+
+    private void drain(Future<T> future) throws IOException {
+        try {
+            sink.accept(future.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pending.forEach(f -> f.cancel(true));
+            throw new InterruptedIOException("Interrupted while waiting for a task to complete");
+        } catch (ExecutionException ex) {
+            pending.forEach(f -> f.cancel(true));
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package logParser.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses a gzip file made of several concatenated members, like the ones written by log shippers or in BGZF
+ * format, on a pool of threads, and returns the decompressed bytes in their original order.
+ * <p>
+ * Member boundaries are found by scanning the file for gzip headers, or by following the block sizes of BGZF files.
+ * Each candidate member is decompressed on its own thread and only accepted if it ends exactly where it should and its
+ * CRC and size match its trailer, so a header-like sequence of bytes inside the compressed data is simply discarded.
+ * Whenever a member cannot be decompressed this way, e.g. because it is larger than the allowed size, like the single
+ * member of an ordinary gzip file, the rest of the file is read sequentially with a GZIPInputStream instead. The search
+ * for the next header never goes further than the compressed size of the largest member that could be decompressed, so
+ * an ordinary gzip file is only probed up to that size before it is read sequentially.
+ * <p>
+ * At most twice as many members as threads are decompressed ahead of the one being read, each into a buffer that grows
+ * up to the maximum member size, so the stream holds at most <code>2 * threads * maxMemberSize</code> bytes, e.g.
+ * 128 MB for 4 threads and the default maximum, but usually far less, like 512 KB for 4 threads reading 64 KB BGZF
+ * blocks.
+ */
+public class ParallelGZIPInputStream extends InputStream {
+    /**
+     * The default maximum size of a single decompressed member
+     */
+    public static final int DEFAULT_MAX_MEMBER_SIZE = 16 << 20;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int FRESERVED = 0xE0;
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+    private static final int READ_SIZE = 65536;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int maxMemberSize;
+
+    /**
+     * The largest compressed size of a member that can be decompressed within maxMemberSize bytes: deflate adds 5 bytes
+     * to each stored block of up to 64 KB, and the optional header fields seldom take more than a read
+     */
+    private final long maxCompressedSize;
+    private final int maxPending;
+    private final ExecutorService executor;
+    private final Deque<Future<Member>> pending = new ArrayDeque<>();
+
+    /**
+     * The offset from which the next candidate member is searched, or -1 if there are no more candidates
+     */
+    private long searchOffset = 0;
+
+    /**
+     * The start of the last candidate member submitted, after which the next header must be found within
+     * maxCompressedSize bytes
+     */
+    private long lastCandidate = 0;
+
+    /**
+     * The start of a candidate member that no header follows closely enough for it to be decompressed in parallel, or
+     * -1 if there is none
+     */
+    private long oversized = -1;
+
+    /**
+     * The offset where the next member to be returned starts
+     */
+    private long expectedOffset = 0;
+
+    private byte[] buffer = new byte[0];
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * The sequential stream used for the rest of the file, once members can no longer be decompressed in parallel
+     */
+    private InputStream fallback;
+
+    /**
+     * Set when the remaining members are no longer needed, so that the threads decompressing them stop early. Threads
+     * are never interrupted, since interrupting a thread that reads from a FileChannel closes the channel.
+     */
+    private volatile boolean abandoned = false;
+
+    /**
+     * A decompressed member
+     * @param start The offset of its header in the file
+     * @param end The offset after its trailer, or -1 if it could not be decompressed
+     * @param data The decompressed bytes
+     * @param length The number of decompressed bytes
+     */
+    private record Member(long start, long end, byte[] data, int length) {
+        static Member failed(long start) {
+            return new Member(start, -1, null, 0);
+        }
+    }
+
+    /**
+     * @param channel A FileChannel over the zipped file, opened for reading and closed by the caller
+     * @param threads The number of threads that decompress members
+     * @throws IOException If the size of the file could not be read
+     */
+    public ParallelGZIPInputStream(FileChannel channel, int threads) throws IOException {
+        this(channel, threads, DEFAULT_MAX_MEMBER_SIZE);
+    }
+
+    /**
+     * @param channel A FileChannel over the zipped file, opened for reading and closed by the caller
+     * @param threads The number of threads that decompress members
+     * @param maxMemberSize The maximum size of a single decompressed member, above which the rest of the file is read
+     *                      sequentially, and which bounds the memory of the stream to 2 * threads * maxMemberSize
+     * @throws IOException If the size of the file could not be read
+     */
+    public ParallelGZIPInputStream(FileChannel channel, int threads, int maxMemberSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.maxMemberSize = maxMemberSize;
+        this.maxCompressedSize = maxMemberSize + (maxMemberSize >>> 10) + READ_SIZE;
+        this.maxPending = Math.max(1, threads) * 2;
+        ThreadFactory threadFactory = Thread.ofPlatform().name("log-inflater-", 1).daemon().factory();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), threadFactory);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (fallback == null && position == limit) {
+            if (!nextMember()) {
+                return -1;
+            }
+        }
+        if (fallback != null) {
+            return fallback.read(b, off, len);
+        }
+
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        abandonPending();
+        executor.shutdown();
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+
+    /**
+     * Moves on to the next member in file order, keeping enough candidate members in flight to occupy every thread
+     * @return True if a member or the fallback stream is ready to be read, false at the end of the file
+     * @throws IOException If the file could not be read
+     */
+    private boolean nextMember() throws IOException {
+        fillPending();
+        while (!pending.isEmpty()) {
+            // Known to be too large without waiting for it to be decompressed
+            if (expectedOffset == oversized) {
+                startFallback();
+                return true;
+            }
+            Member member = await(pending.removeFirst());
+            fillPending();
+
+            // A header-like sequence of bytes inside a member that has already been returned
+            if (member.start() < expectedOffset) {
+                continue;
+            }
+            // Data that is not a gzip member follows, which GZIPInputStream ignores as well
+            if (member.start() > expectedOffset) {
+                break;
+            }
+            if (member.end() < 0) {
+                startFallback();
+                return true;
+            }
+
+            buffer = member.data();
+            position = 0;
+            limit = member.length();
+            expectedOffset = member.end();
+            return true;
+        }
+
+        // The search stopped before the next member, which may still follow
+        if (oversized >= 0 && startsWithHeader(expectedOffset)) {
+            startFallback();
+            return true;
+        }
+        abandonPending();
+        return false;
+    }
+
+    private void fillPending() throws IOException {
+        while (pending.size() < maxPending && searchOffset >= 0) {
+            long searchLimit = lastCandidate + maxCompressedSize;
+            long candidate = findCandidate(searchOffset, searchLimit);
+            if (candidate < 0) {
+                if (searchLimit < fileSize) {
+                    oversized = lastCandidate;
+                }
+                searchOffset = -1;
+                return;
+            }
+            long blockSize = bgzfBlockSize(candidate);
+            lastCandidate = candidate;
+            searchOffset = blockSize > 0 ? candidate + blockSize : candidate + 1;
+            pending.addLast(executor.submit(() -> inflateMember(candidate)));
+        }
+    }
+
+    private Member await(Future<Member> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a gzip member to be decompressed");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Abandons parallel decompression and reads the rest of the file, starting at the next expected member,
+     * sequentially, which also reports any corrupt data
+     */
+    private void startFallback() throws IOException {
+        abandonPending();
+        buffer = new byte[0];
+        position = limit = 0;
+        channel.position(expectedOffset);
+        fallback = new GZIPInputStream(new BufferedInputStream(Channels.newInputStream(channel), READ_SIZE), READ_SIZE);
+    }
+
+    private void abandonPending() {
+        abandoned = true;
+        searchOffset = -1;
+        pending.forEach(f -> f.cancel(false));
+        pending.clear();
+    }
+
+    /**
+     * Finds the next offset that starts with a plausible gzip header, i.e. the magic bytes, the deflate method and no
+     * reserved flags
+     * @param from The offset to start searching from
+     * @param to The offset after which the search stops, give or take a read
+     * @return The offset of the header, or -1 if there is none
+     */
+    private long findCandidate(long from, long to) throws IOException {
+        // Consecutive members, and every BGZF block, start exactly where the search starts
+        if (startsWithHeader(from)) {
+            return from;
+        }
+
+        ByteBuffer chunk = ByteBuffer.allocate(READ_SIZE);
+        long offset = from;
+        while (offset + HEADER_SIZE <= Math.min(fileSize, to)) {
+            chunk.clear();
+            int read = readFully(chunk, offset);
+            for (int i = 0; i + 3 < read; i++) {
+                if (isHeader(chunk, i)) {
+                    return offset + i;
+                }
+            }
+            // The last 3 bytes are scanned again with the next chunk, in case a header starts there
+            offset += Math.max(1, read - 3);
+        }
+        return -1;
+    }
+
+    private boolean startsWithHeader(long offset) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate(4);
+        return readFully(start, offset) == 4 && isHeader(start, 0);
+    }
+
+    private static boolean isHeader(ByteBuffer buffer, int index) {
+        return buffer.get(index) == (byte) 0x1f && buffer.get(index + 1) == (byte) 0x8b && buffer.get(index + 2) == 8
+                && (buffer.get(index + 3) & FRESERVED) == 0;
+    }
+
+    /**
+     * @param start The offset of a gzip header
+     * @return The total size of the member if its header has a BGZF block size field, otherwise -1
+     */
+    private long bgzfBlockSize(long start) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(18).order(ByteOrder.LITTLE_ENDIAN);
+        if (readFully(header, start) < 18 || (header.get(3) & FEXTRA) == 0 || header.getShort(10) < 6
+                || header.get(12) != 'B' || header.get(13) != 'C' || header.getShort(14) != 2) {
+            return -1;
+        }
+        return (header.getShort(16) & 0xFFFF) + 1;
+    }
+
+    /**
+     * Decompresses a single candidate member and verifies it against its trailer
+     * @param start The offset of the member header
+     * @return The decompressed member, or a failed member if it is not a valid gzip member or is too large
+     */
+    private Member inflateMember(long start) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (readFully(header, start) < HEADER_SIZE) {
+            return Member.failed(start);
+        }
+        int flags = header.get(3);
+        long dataStart = start + HEADER_SIZE;
+        if ((flags & FEXTRA) != 0) {
+            ByteBuffer extraLength = ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(extraLength, dataStart);
+            dataStart += 2 + (extraLength.getShort(0) & 0xFFFF);
+        }
+        if ((flags & FNAME) != 0) {
+            dataStart = skipZeroTerminated(dataStart);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            dataStart = skipZeroTerminated(dataStart);
+        }
+        if ((flags & FHCRC) != 0) {
+            dataStart += 2;
+        }
+        if (dataStart < 0 || dataStart >= fileSize) {
+            return Member.failed(start);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            byte[] input = new byte[READ_SIZE];
+            byte[] output = new byte[READ_SIZE];
+            int length = 0;
+            long inputOffset = dataStart;
+            while (!inflater.finished()) {
+                if (abandoned) {
+                    return Member.failed(start);
+                }
+                if (inflater.needsInput()) {
+                    ByteBuffer chunk = ByteBuffer.wrap(input);
+                    int read = readFully(chunk, inputOffset);
+                    if (read <= 0) {
+                        return Member.failed(start);
+                    }
+                    inputOffset += read;
+                    inflater.setInput(input, 0, read);
+                }
+                if (inflater.needsDictionary()) {
+                    return Member.failed(start);
+                }
+                if (length == output.length) {
+                    if (output.length >= maxMemberSize) {
+                        return Member.failed(start);
+                    }
+                    output = Arrays.copyOf(output, (int) Math.min((long) output.length * 2, maxMemberSize));
+                }
+                length += inflater.inflate(output, length, output.length - length);
+            }
+
+            long trailerStart = dataStart + inflater.getBytesRead();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (readFully(trailer, trailerStart) < TRAILER_SIZE) {
+                return Member.failed(start);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(output, 0, length);
+            if ((int) crc.getValue() != trailer.getInt(0) || length != trailer.getInt(4)) {
+                return Member.failed(start);
+            }
+            return new Member(start, trailerStart + TRAILER_SIZE, output, length);
+        } catch (DataFormatException ex) {
+            return Member.failed(start);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return The offset after the zero byte that ends a string starting at offset, or -1 if there is none
+     */
+    private long skipZeroTerminated(long offset) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(1024);
+        while (offset >= 0 && offset < fileSize) {
+            chunk.clear();
+            int read = readFully(chunk, offset);
+            for (int i = 0; i < read; i++) {
+                if (chunk.get(i) == 0) {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads from the given offset until the buffer is full or the end of the file is reached, without moving the
+     * position of the channel, so that it can be called from any thread
+     * @return The number of bytes read
+     */
+    private int readFully(ByteBuffer target, long offset) throws IOException {
+        int total = 0;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, offset + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,163 @@
+package logParser.util;
+
+import logParser.dataModel.RequestEntity;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps every stored request in memory as a row of parallel primitive columns: the dictionary ids of its host, http
+ * verb and resource, its response code, its timestamp, and the size and time of its response, 38 bytes per request
+ * instead of a RequestEntity and its Strings. Rows are appended in fixed-size chunks, so the columns never need to be
+ * copied as they grow, and can be scanned with tight loops over plain arrays.
+ * <p>
+ * Rows are appended by one writer at a time, while readers scan the rows that had been appended when they called
+ * {@link #chunks()}, without locking.
+ */
+@Component
+public class RequestColumns {
+    /**
+     * The number of rows in each chunk
+     */
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The timestamp column of requests whose timestamp couldn't be parsed
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    /**
+     * The response code column of requests whose response code is missing, or too large to be a response code
+     */
+    public static final short NO_RESPONSE_CODE = 0;
+
+    /**
+     * The bytes and response time columns of requests that didn't log them
+     */
+    public static final long NO_VALUE = -1;
+
+    /**
+     * The columns of up to {@link #CHUNK_SIZE} rows, of which only the first length rows may be read, along with the
+     * lowest and highest valid timestamp in the chunk, so that chunks outside a period can be skipped without being
+     * scanned. The timestamp range may include rows appended after the snapshot.
+     */
+    public record Chunk(int[] hostIds, int[] httpVerbIds, int[] resourceIds, short[] responseCodes, long[] timestamps,
+                        long[] bytes, long[] responseTimes, long[] timestampRange, int length) {
+        private Chunk() {
+            this(new int[CHUNK_SIZE], new int[CHUNK_SIZE], new int[CHUNK_SIZE], new short[CHUNK_SIZE], new long[CHUNK_SIZE],
+                    new long[CHUNK_SIZE], new long[CHUNK_SIZE], new long[]{Long.MAX_VALUE, Long.MIN_VALUE}, CHUNK_SIZE);
+        }
+
+        private Chunk withLength(int length) {
+            return new Chunk(hostIds, httpVerbIds, resourceIds, responseCodes, timestamps, bytes, responseTimes,
+                    timestampRange, length);
+        }
+
+        /**
+         * @return True if any row of the chunk may have a timestamp in the given period
+         */
+        public boolean overlaps(long from, long to) {
+            return timestampRange[0] < to && timestampRange[1] >= from;
+        }
+    }
+
+    /**
+     * The dictionary that the ids of the columns refer to
+     */
+    @Autowired
+    @Getter
+    private LogDictionary dictionary = new LogDictionary();
+
+    private volatile Chunk[] chunks = new Chunk[16];
+
+    /**
+     * The number of rows that can be read, published after the rows themselves
+     */
+    private volatile long size = 0;
+
+    /**
+     * Appends a single request, encoding it first if it hasn't passed through the dictionary
+     * @param request A parsed or stored RequestEntity
+     */
+    public synchronized void append(RequestEntity request) {
+        size = write(size, request) + 1;
+    }
+
+    /**
+     * Appends a batch of requests, making them readable all at once
+     * @param requests A List of parsed or stored requests
+     */
+    public synchronized void appendAll(List<RequestEntity> requests) {
+        long row = size;
+        for (RequestEntity request : requests) {
+            write(row++, request);
+        }
+        size = row;
+    }
+
+    /**
+     * @return The number of rows that can be read
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Takes a snapshot of the rows appended so far, which will not change while rows keep being appended
+     * @return The chunks holding the rows, in the order they were appended
+     */
+    public List<Chunk> chunks() {
+        // Reading size first guarantees that the chunks holding those rows are visible
+        long rows = size;
+        Chunk[] current = chunks;
+        List<Chunk> output = new ArrayList<>((int) (rows / CHUNK_SIZE) + 1);
+        for (long start = 0; start < rows; start += CHUNK_SIZE) {
+            output.add(current[(int) (start / CHUNK_SIZE)].withLength((int) Math.min(CHUNK_SIZE, rows - start)));
+        }
+        return output;
+    }
+
+    /**
+     * Writes a request to the given row, without making it readable
+     * @return The row
+     */
+    private long write(long row, RequestEntity request) {
+        if (request.getHostId() < 0) {
+            dictionary.encode(request);
+        }
+
+        int index = (int) (row / CHUNK_SIZE);
+        Chunk[] current = chunks;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            chunks = current;
+        }
+        if (current[index] == null) {
+            current[index] = new Chunk();
+        }
+
+        Chunk chunk = current[index];
+        int offset = (int) (row % CHUNK_SIZE);
+        chunk.hostIds()[offset] = request.getHostId();
+        chunk.httpVerbIds()[offset] = request.getHttpVerbId();
+        chunk.resourceIds()[offset] = request.getResourceId();
+        Integer responseCode = request.getResponseCode();
+        chunk.responseCodes()[offset] = responseCode == null || responseCode < 0 || responseCode > Short.MAX_VALUE
+                ? NO_RESPONSE_CODE : responseCode.shortValue();
+        chunk.bytes()[offset] = request.getBytes() == null ? NO_VALUE : request.getBytes();
+        chunk.responseTimes()[offset] = request.getResponseTime() == null ? NO_VALUE : request.getResponseTime();
+        if (request.getTimestamp() == null) {
+            chunk.timestamps()[offset] = NO_TIMESTAMP;
+        } else {
+            long timestamp = request.getTimestamp();
+            chunk.timestamps()[offset] = timestamp;
+            chunk.timestampRange()[0] = Math.min(chunk.timestampRange()[0], timestamp);
+            chunk.timestampRange()[1] = Math.max(chunk.timestampRange()[1], timestamp);
+        }
+        return row;
+    }
+}
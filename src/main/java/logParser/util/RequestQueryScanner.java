@@ -0,0 +1,198 @@
+package logParser.util;
+
+import logParser.domainModel.RequestQuery;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Answers a {@link RequestQuery} by scanning the in-memory columns, without going through the H2 database.
+ * <p>
+ * Filters on hosts, resources and http verbs are evaluated once per distinct value, against the dictionary, and pushed
+ * down into the scan as lookups by id. Each chunk is then filtered one column at a time: the first filter writes the
+ * positions of the matching rows to a selection vector, and each following filter compacts it, with branch-free tight
+ * loops over a single array each. Chunks whose timestamps are all outside the period are skipped entirely.
+ */
+public class RequestQueryScanner {
+    /**
+     * The result of a query
+     * @param matched The number of requests that matched every filter
+     * @param groups The values with the most matching requests, and their number of requests, sorted by the number of
+     *               requests in descending order
+     */
+    public record Result(long matched, LinkedHashMap<String, Integer> groups) {
+    }
+
+    /**
+     * Counts the requests that match a query, by the value of the field it groups them by
+     * @param columns The RequestColumns to scan
+     * @param query The filters, grouping and limit of the query
+     * @return The number of matching requests, and the values with the most matching requests
+     */
+    public static Result execute(RequestColumns columns, RequestQuery query) {
+        List<RequestColumns.Chunk> chunks = columns.chunks();
+        // Every id in the chunks was assigned before the snapshot was taken, so it is below the sizes read after it
+        LogDictionary dictionary = columns.getDictionary();
+        boolean[] hosts = query.getHost() == null ? null : matchingIds(dictionary.getHosts(), query.getHost());
+        boolean[] resources = query.getResource() == null ? null : matchingIds(dictionary.getResources(), query.getResource());
+        int httpVerbId = query.getHttpVerb() == null ? -1 : dictionary.getHttpVerbs().find(query.getHttpVerb());
+        // Requests without a response code are never within a range of response codes
+        int minResponseCode = query.getMinResponseCode() == null ? RequestColumns.NO_RESPONSE_CODE + 1 : query.getMinResponseCode();
+        int maxResponseCode = query.getMaxResponseCode() == null ? Integer.MAX_VALUE : query.getMaxResponseCode();
+        // Requests without a timestamp are never within a period
+        long from = query.getFrom() == null ? RequestColumns.NO_TIMESTAMP + 1 : query.getFrom();
+        long to = query.getTo() == null ? Long.MAX_VALUE : query.getTo();
+
+        SymbolTable groupTable = switch (query.getGroupBy()) {
+            case HOST -> dictionary.getHosts();
+            case HTTP_VERB -> dictionary.getHttpVerbs();
+            case RESOURCE -> dictionary.getResources();
+            case RESPONSE_CODE -> null;
+        };
+        int[] counts = new int[groupTable == null ? Short.MAX_VALUE + 1 : groupTable.size()];
+        int[] selection = new int[RequestColumns.CHUNK_SIZE];
+        long matched = 0;
+
+        for (RequestColumns.Chunk chunk : chunks) {
+            if (query.hasPeriod() && !chunk.overlaps(from, to)) {
+                continue;
+            }
+
+            int selected;
+            if (query.hasPeriod()) {
+                selected = selectPeriod(chunk.timestamps(), chunk.length(), from, to, selection);
+            } else {
+                selected = chunk.length();
+                for (int i = 0; i < selected; i++) {
+                    selection[i] = i;
+                }
+            }
+            if (query.getMinResponseCode() != null || query.getMaxResponseCode() != null) {
+                selected = filterRange(chunk.responseCodes(), minResponseCode, maxResponseCode, selection, selected);
+            }
+            if (query.getHttpVerb() != null) {
+                selected = filterEqual(chunk.httpVerbIds(), httpVerbId, selection, selected);
+            }
+            if (hosts != null) {
+                selected = filterIds(chunk.hostIds(), hosts, selection, selected);
+            }
+            if (resources != null) {
+                selected = filterIds(chunk.resourceIds(), resources, selection, selected);
+            }
+
+            switch (query.getGroupBy()) {
+                case HOST -> count(chunk.hostIds(), selection, selected, counts);
+                case HTTP_VERB -> count(chunk.httpVerbIds(), selection, selected, counts);
+                case RESOURCE -> count(chunk.resourceIds(), selection, selected, counts);
+                case RESPONSE_CODE -> {
+                    short[] responseCodes = chunk.responseCodes();
+                    for (int j = 0; j < selected; j++) {
+                        counts[responseCodes[selection[j]]]++;
+                    }
+                }
+            }
+            matched += selected;
+        }
+
+        ObjectIntCounter<String> groups = new ObjectIntCounter<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                groups.add(groupTable != null ? groupTable.valueOf(id)
+                        : id == RequestColumns.NO_RESPONSE_CODE ? null : String.valueOf(id), counts[id]);
+            }
+        }
+        return new Result(matched, StatisticsCalculator.getTopCounts(groups, query.getLimit()));
+    }
+
+    /**
+     * Writes the positions of the rows with a timestamp in the given period to the selection vector
+     * @return The number of selected rows
+     */
+    private static int selectPeriod(long[] timestamps, int length, long from, long to, int[] selection) {
+        int selected = 0;
+        for (int i = 0; i < length; i++) {
+            selection[selected] = i;
+            selected += timestamps[i] >= from & timestamps[i] < to ? 1 : 0;
+        }
+        return selected;
+    }
+
+    /**
+     * Keeps the selected rows whose value is within the given range, inclusive
+     * @return The number of rows still selected
+     */
+    private static int filterRange(short[] column, int min, int max, int[] selection, int selected) {
+        int kept = 0;
+        for (int j = 0; j < selected; j++) {
+            int row = selection[j];
+            selection[kept] = row;
+            kept += column[row] >= min & column[row] <= max ? 1 : 0;
+        }
+        return kept;
+    }
+
+    /**
+     * Keeps the selected rows whose id equals the given one
+     * @return The number of rows still selected
+     */
+    private static int filterEqual(int[] column, int id, int[] selection, int selected) {
+        int kept = 0;
+        for (int j = 0; j < selected; j++) {
+            int row = selection[j];
+            selection[kept] = row;
+            kept += column[row] == id ? 1 : 0;
+        }
+        return kept;
+    }
+
+    /**
+     * Keeps the selected rows whose id is marked in the given lookup table
+     * @return The number of rows still selected
+     */
+    private static int filterIds(int[] column, boolean[] matching, int[] selection, int selected) {
+        int kept = 0;
+        for (int j = 0; j < selected; j++) {
+            int row = selection[j];
+            selection[kept] = row;
+            kept += matching[column[row]] ? 1 : 0;
+        }
+        return kept;
+    }
+
+    private static void count(int[] column, int[] selection, int selected, int[] counts) {
+        for (int j = 0; j < selected; j++) {
+            counts[column[selection[j]]]++;
+        }
+    }
+
+    /**
+     * Evaluates a pattern against every value of a symbol table
+     * @param table A SymbolTable
+     * @param pattern A pattern where <code>*</code> matches any characters, or a prefix if it contains no
+     *                <code>*</code>
+     * @return A lookup table marking the ids of the matching values
+     */
+    private static boolean[] matchingIds(SymbolTable table, String pattern) {
+        boolean[] matching = new boolean[table.size()];
+        if (pattern.indexOf('*') < 0) {
+            for (int id = 1; id < matching.length; id++) {
+                matching[id] = table.valueOf(id).startsWith(pattern);
+            }
+            return matching;
+        }
+
+        StringBuilder regex = new StringBuilder();
+        for (String part : pattern.split("\\*", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        Pattern compiled = Pattern.compile(regex.toString(), Pattern.DOTALL);
+        for (int id = 1; id < matching.length; id++) {
+            matching[id] = compiled.matcher(table.valueOf(id)).matches();
+        }
+        return matching;
+    }
+}
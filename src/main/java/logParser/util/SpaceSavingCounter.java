@@ -0,0 +1,196 @@
+package logParser.util;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Counts the most frequent keys approximately, in a fixed amount of memory, with the Space-Saving algorithm of
+ * Metwally, Agrawal and El Abbadi. At most capacity keys are counted at a time; a new key replaces the key with the
+ * lowest count, and takes over that count as its error.
+ * <p>
+ * After n occurrences have been added, every count is at least the true count of its key and overestimates it by at
+ * most the lowest count kept, which is never more than n / capacity. Every key that occurred more than n / capacity
+ * times is guaranteed to be counted. Adding another counter key by key, as {@link #addAll(KeyCounter)} does, keeps the
+ * same bounds over the occurrences of both. Keys are kept in a min-heap by count, so each addition takes
+ * O(log capacity).
+ * @param <K> The type of the counted keys
+ */
+public class SpaceSavingCounter<K> implements KeyCounter<K> {
+    private static final Object NULL_KEY = new Object();
+
+    private static final class Slot {
+        private Object key;
+        private int count;
+        private int error;
+        private int position;
+    }
+
+    private final int capacity;
+    private final Map<Object, Slot> slots;
+    private final Slot[] heap;
+    private int size;
+
+    /**
+     * Receives the keys that are replaced by new ones
+     */
+    private final Consumer<? super K> evictionListener;
+
+    /**
+     * @param capacity The maximum number of keys counted at a time
+     */
+    public SpaceSavingCounter(int capacity) {
+        this(capacity, _ -> {
+        });
+    }
+
+    /**
+     * @param capacity The maximum number of keys counted at a time
+     * @param evictionListener Receives each key that is replaced by a new one, and is no longer counted
+     */
+    public SpaceSavingCounter(int capacity, Consumer<? super K> evictionListener) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new HashMap<>(Math.min(capacity, 1 << 16) * 2);
+        this.heap = new Slot[capacity];
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Adds a value to the count of a key, replacing the key with the lowest count if the key isn't counted and the
+     * counter is full
+     * @param key The key to count
+     * @param delta The value to add, which must not be negative
+     * @return The new count of the key
+     */
+    @Override
+    public int add(K key, int delta) {
+        Object k = key == null ? NULL_KEY : key;
+        Slot slot = slots.get(k);
+        if (slot == null) {
+            if (size < capacity) {
+                slot = new Slot();
+                slot.key = k;
+                slot.count = delta;
+                slot.position = size;
+                heap[size++] = slot;
+                slots.put(k, slot);
+                siftUp(slot);
+                return slot.count;
+            }
+
+            // Replace the key with the lowest count, which is always at the root of the heap
+            slot = heap[0];
+            slots.remove(slot.key);
+            evictionListener.accept(unmask(slot.key));
+            slot.error = slot.count;
+            slot.key = k;
+            slots.put(k, slot);
+        }
+        slot.count += delta;
+        siftDown(slot);
+        return slot.count;
+    }
+
+    @Override
+    public int get(Object key) {
+        Slot slot = slots.get(key == null ? NULL_KEY : key);
+        return slot == null ? 0 : slot.count;
+    }
+
+    /**
+     * @param key A key
+     * @return The most that the count of the key may overestimate its true count, or 0 if the key isn't counted
+     */
+    public int getError(Object key) {
+        Slot slot = slots.get(key == null ? NULL_KEY : key);
+        return slot == null ? 0 : slot.error;
+    }
+
+    /**
+     * @return The lowest count kept, which bounds the error of every count, or 0 if fewer than capacity keys have been
+     * counted
+     */
+    public int getMaxError() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Performs an action for each counted key and its count, in heap order
+     * @param action The action to perform
+     */
+    @Override
+    public void forEach(ObjIntConsumer<? super K> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(unmask(heap[i].key), heap[i].count);
+        }
+    }
+
+    /**
+     * @return A read-only copy of the counts, which does not reflect later changes to this counter
+     */
+    @Override
+    public Map<K, Integer> asMap() {
+        Map<K, Integer> map = new HashMap<>(size * 2);
+        forEach(map::put);
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Moves a new slot up the heap, until its parent has a lower count
+     */
+    private void siftUp(Slot slot) {
+        int position = slot.position;
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (heap[parent].count <= slot.count) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heap[position].position = position;
+            position = parent;
+        }
+        heap[position] = slot;
+        slot.position = position;
+    }
+
+    /**
+     * Moves a slot whose count has grown down the heap, until its children have higher counts
+     */
+    private void siftDown(Slot slot) {
+        int position = slot.position;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= slot.count) {
+                break;
+            }
+            heap[position] = heap[child];
+            heap[position].position = position;
+            position = child;
+        }
+        heap[position] = slot;
+        slot.position = position;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K unmask(Object key) {
+        return key == NULL_KEY ? null : (K) key;
+    }
+}
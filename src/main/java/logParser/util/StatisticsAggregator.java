@@ -0,0 +1,160 @@
+package logParser.util;
+
+import jakarta.annotation.PostConstruct;
+import logParser.dataModel.RequestEntity;
+import logParser.domainModel.StatisticsContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the statistics up to date while requests are being parsed or loaded, so that they never need to be
+ * calculated from a complete list of requests.
+ * <p>
+ * Requests and partial statistics are added to a working container, which is only touched by writers, one at a time.
+ * Readers only ever see snapshots: {@link #publish()} copies the working container into a new StatisticsContainer,
+ * calculates its rankings and swaps it in atomically. A published snapshot is never modified again, so readers need no
+ * locks and always see counters and rankings that belong together, even while requests keep being added.
+ * <p>
+ * Copying takes time and memory proportional to the whole statistics, so publishes are done one at a time, skipped
+ * when nothing has been added since the last one, and callers that add requests continuously, like the LogFollower,
+ * coalesce them with {@link #publishIfDue()}.
+ * <p>
+ * In {@link Mode#APPROXIMATE} mode, resources, failed resources and hosts are only counted for the most frequent ones,
+ * so that the memory of the statistics stays bounded however many distinct values the logs contain.
+ */
+@Component
+public class StatisticsAggregator {
+    public enum Mode {
+        /**
+         * Every resource and host is counted exactly
+         */
+        EXACT,
+        /**
+         * Only the most frequent resources and hosts are counted, with counts that may overestimate the true ones by a
+         * bounded amount
+         * @see SpaceSavingCounter
+         */
+        APPROXIMATE
+    }
+
+    @Value("${logParser.statistics.mode:EXACT}")
+    private Mode mode = Mode.EXACT;
+
+    /**
+     * The number of resources, failed resources and hosts counted in approximate mode, and the number of resources that
+     * keep their distinct hosts and response histograms in both modes
+     */
+    @Value("${logParser.statistics.approximate.capacity:10000}")
+    private int capacity = 10000;
+
+    /**
+     * The number of resources counted per host in approximate mode
+     */
+    @Value("${logParser.statistics.approximate.host.capacity:100}")
+    private int hostCapacity = 100;
+
+    /**
+     * The minimum number of milliseconds between two publishes done by {@link #publishIfDue()}
+     */
+    @Value("${logParser.statistics.publish.interval.ms:1000}")
+    private long publishIntervalMillis = 1000;
+
+    private StatisticsContainer statistics = new StatisticsContainer();
+
+    /**
+     * The number of times requests or partial statistics have been added to the working container
+     */
+    private long changes = 0;
+
+    /**
+     * Held while publishing, so that snapshots are installed in the order they were copied
+     */
+    private final Object publishLock = new Object();
+    private long publishedChanges = -1;
+    private long publishedVersion = 0;
+    private volatile long publishedAt = 0;
+
+    private final AtomicReference<StatisticsContainer> snapshot = new AtomicReference<>();
+
+    @Autowired
+    private LogDictionary dictionary;
+
+    @PostConstruct
+    public synchronized void initialize() {
+        statistics = createContainer();
+    }
+
+    /**
+     * Creates an empty StatisticsContainer that counts resources and hosts according to the configured mode, for
+     * gathering statistics that will be merged into this aggregator
+     * @return A new StatisticsContainer
+     */
+    public StatisticsContainer createContainer() {
+        return mode == Mode.APPROXIMATE ? new StatisticsContainer(capacity, hostCapacity) : new StatisticsContainer(capacity);
+    }
+
+    /**
+     * Adds a single request to the statistics, encoding it first if it hasn't passed through the dictionary, so that
+     * the counters are keyed by canonical values
+     * @param request A parsed or stored RequestEntity
+     */
+    public synchronized void accept(RequestEntity request) {
+        if (request.getHostId() < 0) {
+            dictionary.encode(request);
+        }
+        StatisticsCalculator.addRequest(statistics, request);
+        changes++;
+    }
+
+    /**
+     * Adds statistics that were gathered separately, e.g. while parsing a single log file on another thread
+     * @param partial A StatisticsContainer with its base fields filled
+     */
+    public synchronized void merge(StatisticsContainer partial) {
+        StatisticsCalculator.mergeStatistics(statistics, partial);
+        changes++;
+    }
+
+    /**
+     * Publishes a new snapshot, including every request accepted so far, with its sorted and top 10 statistics
+     * calculated, unless nothing has been added since the last one. Readers keep seeing the previous snapshot until the
+     * new one is complete.
+     */
+    public void publish() {
+        synchronized (publishLock) {
+            StatisticsContainer next = createContainer();
+            synchronized (this) {
+                if (changes == publishedChanges) {
+                    return;
+                }
+                StatisticsCalculator.mergeStatistics(next, statistics);
+                publishedChanges = changes;
+            }
+            StatisticsCalculator.calculateRankings(next);
+            next.setVersion(++publishedVersion);
+            snapshot.set(next);
+            publishedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Publishes a new snapshot if the last one is older than the publish interval. Callers are expected to call this
+     * again later, so that the requests added in the meantime are published eventually.
+     */
+    public void publishIfDue() {
+        if (System.currentTimeMillis() - publishedAt >= publishIntervalMillis) {
+            publish();
+        }
+    }
+
+    /**
+     * @return The snapshot published last, which must not be modified, or null if no requests have been published
+     */
+    public StatisticsContainer getStatistics() {
+        StatisticsContainer current = snapshot.get();
+        return current != null && current.getAllRequests() > 0 ? current : null;
+    }
+}
@@ -1,10 +1,14 @@
 package logParser.util;
 
 import logParser.dataModel.RequestEntity;
+import logParser.domainModel.HostRequests;
+import logParser.domainModel.RequestTimeline;
+import logParser.domainModel.ResponseHistograms;
 import logParser.domainModel.StatisticsContainer;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class StatisticsCalculator {
     /**
@@ -16,42 +20,470 @@ public class StatisticsCalculator {
      */
     public static StatisticsContainer createBaseStatisticsContainer(List<RequestEntity> input) {
         StatisticsContainer output = new StatisticsContainer();
-        output.setAllRequests(input.size());
-        HashMap<String, Integer> resourceCallCount = output.getResourceCallCount();
-        HashMap<String, List<String>> requestsPerHost = output.getRequestsPerHost();
-        HashMap<String, Integer> resourceFailCount = output.getResourceFailCount();
-        int successfulRequests = 0;
         for (RequestEntity rm : input) {
-            String resource = rm.getResource();
-            resourceCallCount.put(resource, resourceCallCount.getOrDefault(resource, 0) + 1);
-            output.setResourceCallCount(resourceCallCount);
+            addRequest(output, rm);
+        }
+        return output;
+    }
+
+    /**
+     * Scans the in-memory columns of every request appended so far and retrieves the same base statistics as
+     * {@link #createBaseStatisticsContainer(List)}. Hosts and resources are counted by id in plain arrays, and only
+     * turned into their values once, after the scan.
+     * @param columns The RequestColumns to scan
+     * @return A StatisticsContainer object with its allRequests, resourceCallCount, resourceFailCount, requestsPerHost,
+     * statusClassCount, timeline, successfulRequests, distinct count and response histogram fields already filled
+     */
+    public static StatisticsContainer createBaseStatisticsContainer(RequestColumns columns) {
+        return createBaseStatisticsContainer(columns, new StatisticsContainer());
+    }
+
+    /**
+     * Scans the in-memory columns like {@link #createBaseStatisticsContainer(RequestColumns)}, into a given empty
+     * container, e.g. one created by {@link StatisticsAggregator#createContainer()}. The totals of the resources and
+     * hosts are counted exactly by id, and only the most frequent ones are given to an approximate container once the
+     * scan is done. Everything else is bounded during the scan like in the container: the resources with response
+     * histograms, and distinct hosts when counted approximately, are the ones kept by a SpaceSavingCounter of resource
+     * ids of the same capacity, and approximately counted hosts only keep their resources while a SpaceSavingCounter
+     * of host ids keeps them.
+     * @param columns The RequestColumns to scan
+     * @param output An empty StatisticsContainer, counting resources and hosts exactly or approximately
+     * @return The output container, with the same fields filled as by
+     * {@link #createBaseStatisticsContainer(RequestColumns)}
+     */
+    public static StatisticsContainer createBaseStatisticsContainer(RequestColumns columns, StatisticsContainer output) {
+        List<RequestColumns.Chunk> chunks = columns.chunks();
+        // Every id in the chunks was assigned before the snapshot was taken, so it is below the sizes read after it
+        SymbolTable hosts = columns.getDictionary().getHosts();
+        SymbolTable resources = columns.getDictionary().getResources();
+        boolean approximate = output.isApproximate();
+        int[] hostCount = new int[hosts.size()];
+        int[] resourceCallCount = new int[resources.size()];
+        int[] resourceFailCount = new int[resources.size()];
+        long[] statusClassCount = output.getStatusClassCount();
+        RequestTimeline timeline = output.getTimeline();
+        ResponseHistograms allResponses = output.getResponses();
+
+        ResponseHistograms[] responsesPerResource = new ResponseHistograms[resources.size()];
+        HyperLogLog[] hostsPerResource = approximate ? new HyperLogLog[resources.size()] : null;
+        int detailCapacity = capacityOf(output.getDetailedResourceCounter());
+        SpaceSavingCounter<Integer> detailedResources = detailCapacity >= resources.size() ? null
+                : new SpaceSavingCounter<>(detailCapacity, id -> {
+                    responsesPerResource[id] = null;
+                    if (hostsPerResource != null) {
+                        hostsPerResource[id] = null;
+                    }
+                });
+        // Exact containers keep every host and resource pair, approximate ones only the resources of the kept hosts
+        IntIntCounter[] resourcesPerHost = approximate ? null : new IntIntCounter[hosts.size()];
+        HostScan[] hostScans = approximate ? new HostScan[hosts.size()] : null;
+        SpaceSavingCounter<Integer> scannedHosts = !approximate ? null
+                : new SpaceSavingCounter<>(output.getHostCounter().getCapacity(), id -> hostScans[id] = null);
+
+        for (RequestColumns.Chunk chunk : chunks) {
+            int[] hostIds = chunk.hostIds();
+            int[] resourceIds = chunk.resourceIds();
+            short[] responseCodes = chunk.responseCodes();
+            long[] timestamps = chunk.timestamps();
+            long[] bytes = chunk.bytes();
+            long[] responseTimes = chunk.responseTimes();
+            for (int i = 0; i < chunk.length(); i++) {
+                int hostId = hostIds[i];
+                int resourceId = resourceIds[i];
+                int responseCode = responseCodes[i];
+                int statusClass = responseCode >= 100 && responseCode <= 599 ? responseCode / 100 : 0;
+
+                hostCount[hostId]++;
+                resourceCallCount[resourceId]++;
+                statusClassCount[statusClass]++;
+                if (statusClass != 2 && statusClass != 3) {
+                    resourceFailCount[resourceId]++;
+                }
+                if (timestamps[i] != RequestColumns.NO_TIMESTAMP) {
+                    timeline.add(timestamps[i], statusClass);
+                }
+
+                if (detailedResources != null) {
+                    detailedResources.increment(resourceId);
+                }
+                if (bytes[i] != RequestColumns.NO_VALUE || responseTimes[i] != RequestColumns.NO_VALUE) {
+                    ResponseHistograms responses = responsesPerResource[resourceId];
+                    if (responses == null) {
+                        responses = new ResponseHistograms();
+                        responsesPerResource[resourceId] = responses;
+                    }
+                    if (bytes[i] != RequestColumns.NO_VALUE) {
+                        allResponses.getBytes().record(bytes[i]);
+                        responses.getBytes().record(bytes[i]);
+                    }
+                    if (responseTimes[i] != RequestColumns.NO_VALUE) {
+                        allResponses.getResponseTime().record(responseTimes[i]);
+                        responses.getResponseTime().record(responseTimes[i]);
+                    }
+                }
+
+                if (!approximate) {
+                    IntIntCounter resourcesOfHost = resourcesPerHost[hostId];
+                    if (resourcesOfHost == null) {
+                        resourcesOfHost = new IntIntCounter();
+                        resourcesPerHost[hostId] = resourcesOfHost;
+                    }
+                    resourcesOfHost.add(resourceId, 1);
+                    continue;
+                }
+                // Without every pair, the sketches need every request, as in addRequest
+                HyperLogLog hostsOfResource = hostsPerResource[resourceId];
+                if (hostsOfResource == null) {
+                    hostsOfResource = new HyperLogLog();
+                    hostsPerResource[resourceId] = hostsOfResource;
+                }
+                hostsOfResource.add(hosts.valueOf(hostId));
+                scannedHosts.increment(hostId);
+                HostScan hostScan = hostScans[hostId];
+                if (hostScan == null) {
+                    hostScan = new HostScan(new SpaceSavingCounter<>(output.getHostResourceCapacity()), new HyperLogLog());
+                    hostScans[hostId] = hostScan;
+                }
+                hostScan.resources().increment(resourceId);
+                hostScan.uniqueResources().add(resources.valueOf(resourceId));
+            }
+        }
 
-            String host = rm.getHost();
-            if (!requestsPerHost.containsKey(host)) {
-                requestsPerHost.put(host, new ArrayList<>());
+        // Approximate counters are only given the most counted resources and hosts, which they can then count exactly
+        for (int id : topIds(resourceCallCount, capacityOf(output.getResourceCallCounter()))) {
+            output.getResourceCallCounter().add(resources.valueOf(id), resourceCallCount[id]);
+        }
+        KeyCounter<String> detailedResourceCounter = output.getDetailedResourceCounter();
+        for (int id : topIds(resourceCallCount, detailCapacity)) {
+            String resource = resources.valueOf(id);
+            if (detailedResourceCounter != output.getResourceCallCounter()) {
+                detailedResourceCounter.add(resource, resourceCallCount[id]);
+            }
+            if (responsesPerResource[id] != null) {
+                output.getResponsesPerResource().put(resource, responsesPerResource[id]);
+            }
+            if (hostsPerResource != null && hostsPerResource[id] != null) {
+                output.getHostsPerResource().put(resource, hostsPerResource[id]);
+            }
+        }
+        for (int id : topIds(resourceFailCount, capacityOf(output.getResourceFailCounter()))) {
+            output.getResourceFailCounter().add(resources.valueOf(id), resourceFailCount[id]);
+        }
+        for (int id = 0; id < hostCount.length; id++) {
+            if (hostCount[id] > 0) {
+                output.getUniqueHosts().add(hosts.valueOf(id));
             }
-            requestsPerHost.get(host).add(resource);
+        }
 
-            if (rm.isSuccessful()) {
-                successfulRequests++;
-            } else {
-                resourceFailCount.put(resource, resourceFailCount.getOrDefault(resource, 0) + 1);
+        if (approximate) {
+            scannedHosts.forEach((id, _) -> {
+                HostRequests requests = output.addHostRequests(hosts.valueOf(id), hostCount[id]);
+                hostScans[id].resources().forEach((resourceId, calls) ->
+                        requests.getResourceCallCounter().add(resources.valueOf(resourceId), calls));
+                requests.getUniqueResources().merge(hostScans[id].uniqueResources());
+            });
+        } else {
+            // The counters of the hosts hold each distinct host and resource pair once, which is all the sketches need
+            for (int id = 0; id < resourcesPerHost.length; id++) {
+                if (resourcesPerHost[id] != null) {
+                    String host = hosts.valueOf(id);
+                    HostRequests requests = new HostRequests();
+                    resourcesPerHost[id].forEach((resourceId, calls) -> {
+                        String resource = resources.valueOf(resourceId);
+                        requests.getResourceCallCounter().add(resource, calls);
+                        requests.getUniqueResources().add(resource);
+                        HyperLogLog hostsOfResource = output.getHostsOfResource(resource);
+                        if (hostsOfResource != null) {
+                            hostsOfResource.add(host);
+                        }
+                    });
+                    requests.setTotalRequests(hostCount[id]);
+                    output.getRequestsPerHost().put(host, requests);
+                }
             }
         }
-        output.setResourceCallCount(resourceCallCount);
-        output.setRequestsPerHost(requestsPerHost);
-        output.setResourceFailCount(resourceFailCount);
-        output.setSuccessfulRequests(successfulRequests);
+        output.setAllRequests(Arrays.stream(statusClassCount).sum());
+        output.setSuccessfulRequests(statusClassCount[2] + statusClassCount[3]);
         return output;
     }
 
+    /**
+     * Selects the ids with the highest counts, keeping at most limit ids at a time in a min-heap, like
+     * {@link #getTopCounts(KeyCounter, int)}, so that only the ids entering the heap are boxed and only the selected
+     * ones are sorted
+     * @param counts The counts of a set of ids, indexed by id
+     * @param limit The maximum number of ids to select
+     * @return The ids whose count isn't 0, in order, if there are at most limit of them, or else the limit ids with the
+     * highest counts, sorted by count in descending order, with the lower ids first among equal counts
+     */
+    private static int[] topIds(int[] counts, int limit) {
+        int counted = 0;
+        for (int count : counts) {
+            counted += count > 0 ? 1 : 0;
+        }
+        if (counted <= limit) {
+            return IntStream.range(0, counts.length).filter(id -> counts[id] > 0).toArray();
+        }
+
+        // The heap's head is the id to evict first: the lowest count, or the highest id among equal counts
+        Comparator<Integer> heapOrder = Comparator.<Integer>comparingInt(id -> counts[id]).thenComparing(Comparator.reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, heapOrder);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(id);
+            } else if (counts[id] > counts[heap.peek()]) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+        int[] ids = new int[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = heap.poll();
+        }
+        return ids;
+    }
+
+    /**
+     * @return The number of keys an approximate counter keeps, or Integer.MAX_VALUE for an exact counter
+     */
+    private static int capacityOf(KeyCounter<?> counter) {
+        return counter instanceof SpaceSavingCounter<?> approximate ? approximate.getCapacity() : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Adds a single parsed RequestModel to the number of times its resource was called, in total and by its host,
+     * to the number of total, successful and per response code class requests, to the timeline, to the distinct
+     * hosts overall and per resource, and distinct resources per host, and to the response histograms overall and per
+     * resource
+     * @param output A StatisticsContainer whose allRequests, resourceCallCount, resourceFailCount, requestsPerHost,
+     *               statusClassCount, timeline, successfulRequests, distinct count and response histogram fields will
+     *               be updated
+     * @param rm A parsed RequestModel
+     */
+    public static void addRequest(StatisticsContainer output, RequestEntity rm) {
+        output.setAllRequests(output.getAllRequests() + 1);
+
+        String resource = rm.getResource();
+        String host = rm.getHost();
+        output.addResourceCalls(resource, 1);
+
+        HostRequests hostRequests = output.addHostRequests(host, 1);
+        // Sketches ignore values added again, so exact counters only need to add each host and resource pair once,
+        // unless the sketch of the resource has been dropped and started again since
+        boolean firstCall = hostRequests.getResourceCallCounter().increment(resource) == 1;
+        if (firstCall || output.isApproximate()) {
+            output.getUniqueHosts().add(host);
+            hostRequests.getUniqueResources().add(resource);
+        }
+        if (firstCall || output.isApproximate() || output.hasPartialResourceDetails(resource)) {
+            HyperLogLog hostsOfResource = output.getHostsOfResource(resource);
+            if (hostsOfResource != null) {
+                hostsOfResource.add(host);
+            }
+        }
+
+        if (rm.getBytes() != null || rm.getResponseTime() != null) {
+            output.getResponses().add(rm.getBytes(), rm.getResponseTime());
+            ResponseHistograms responses = output.getResponsesOfResource(resource);
+            if (responses != null) {
+                responses.add(rm.getBytes(), rm.getResponseTime());
+            }
+        }
+
+        output.getStatusClassCount()[rm.getStatusClass()]++;
+        if (rm.getTimestamp() != null) {
+            output.getTimeline().add(rm.getTimestamp(), rm.getStatusClass());
+        }
+        if (rm.isSuccessful()) {
+            output.setSuccessfulRequests(output.getSuccessfulRequests() + 1);
+        } else {
+            output.getResourceFailCounter().increment(resource);
+        }
+    }
+
+    /**
+     * Adds the base fields of a StatisticsContainer to those of another one, e.g. to combine the statistics of several
+     * log files that were parsed separately
+     * @param output A StatisticsContainer whose base fields will be updated
+     * @param input A StatisticsContainer whose base fields will be added to output, left unchanged
+     */
+    public static void mergeStatistics(StatisticsContainer output, StatisticsContainer input) {
+        output.setAllRequests(output.getAllRequests() + input.getAllRequests());
+        output.setSuccessfulRequests(output.getSuccessfulRequests() + input.getSuccessfulRequests());
+        output.getResourceCallCounter().addAll(input.getResourceCallCounter());
+        if (output.getDetailedResourceCounter() != output.getResourceCallCounter()) {
+            output.getDetailedResourceCounter().addAll(input.getDetailedResourceCounter());
+        }
+        output.getResourceFailCounter().addAll(input.getResourceFailCounter());
+
+        long[] statusClassCount = output.getStatusClassCount();
+        for (int i = 0; i < statusClassCount.length; i++) {
+            statusClassCount[i] += input.getStatusClassCount()[i];
+        }
+        output.getTimeline().addAll(input.getTimeline());
+
+        output.getUniqueHosts().merge(input.getUniqueHosts());
+        for (Map.Entry<String, HyperLogLog> entry : input.getHostsPerResource().entrySet()) {
+            HyperLogLog hosts = output.getHostsOfResource(entry.getKey());
+            if (hosts != null) {
+                hosts.merge(entry.getValue());
+            }
+        }
+
+        output.getResponses().merge(input.getResponses());
+        for (Map.Entry<String, ResponseHistograms> entry : input.getResponsesPerResource().entrySet()) {
+            ResponseHistograms responses = output.getResponsesOfResource(entry.getKey());
+            if (responses != null) {
+                responses.merge(entry.getValue());
+            }
+        }
+
+        for (Map.Entry<String, HostRequests> entry : input.getRequestsPerHost().entrySet()) {
+            HostRequests hostRequests = output.addHostRequests(entry.getKey(), entry.getValue().getTotalRequests());
+            hostRequests.getResourceCallCounter().addAll(entry.getValue().getResourceCallCounter());
+            hostRequests.getUniqueResources().merge(entry.getValue().getUniqueResources());
+        }
+    }
+
+    /**
+     * Calculates the top 10 fields of a StatisticsContainer from its base fields
+     * @param data A StatisticsContainer with its base fields already filled
+     */
+    public static void calculateRankings(StatisticsContainer data) {
+        data.setTop10Resources(getMostRequestedResources(data.getResourceCallCounter(), 10));
+        data.setTop10FailedResources(getFrequentlyFailingResources(getMostFailingResources(data.getResourceFailCounter(), 10)));
+        data.setTop10HostResources(getMostFrequentHosts(data.getRequestsPerHost(), 10));
+        data.setTop10HostRequests(getFrequentRequestsPerHost(data.getTop10HostResources()));
+    }
+
+    /**
+     * Selects the entries with the highest values, keeping at most limit entries at a time in a min-heap, so that
+     * only the selected entries ever need to be sorted. Entries with equal values keep the order of the input.
+     * @param input A Map containing the entries to select from
+     * @param limit The maximum number of entries to select
+     * @param valueComparator A Comparator ordering the values from lowest to highest
+     * @return A LinkedHashMap containing the selected entries, sorted by their values in descending order
+     */
+    public static <K, V> LinkedHashMap<K, V> getTopEntries(Map<K, V> input, int limit, Comparator<? super V> valueComparator) {
+        LinkedHashMap<K, V> output = new LinkedHashMap<>();
+        if (limit <= 0 || input.isEmpty()) {
+            return output;
+        }
+
+        // The heap's head is the entry to evict first: the lowest value, or the latest one among equal values
+        Comparator<RankedEntry<K, V>> heapOrder = Comparator.<RankedEntry<K, V>, V>comparing(RankedEntry::value, valueComparator)
+                .thenComparing(Comparator.comparingInt(RankedEntry<K, V>::order).reversed());
+        PriorityQueue<RankedEntry<K, V>> heap = new PriorityQueue<>(Math.min(limit, input.size()) + 1, heapOrder);
+        int order = 0;
+        for (Map.Entry<K, V> entry : input.entrySet()) {
+            RankedEntry<K, V> candidate = new RankedEntry<>(entry.getKey(), entry.getValue(), order++);
+            if (heap.size() < limit) {
+                heap.add(candidate);
+            } else if (heapOrder.compare(candidate, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        List<RankedEntry<K, V>> selected = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            selected.add(heap.poll());
+        }
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            output.put(selected.get(i).key(), selected.get(i).value());
+        }
+        return output;
+    }
+
+    /**
+     * Selects the keys with the highest counts, like {@link #getTopEntries(Map, int, Comparator)}, but comparing the
+     * counts as primitive ints, so that only the selected counts are ever boxed
+     * @param input A KeyCounter containing the counts to select from
+     * @param limit The maximum number of keys to select
+     * @return A LinkedHashMap containing the selected keys and their counts, sorted by count in descending order
+     */
+    public static <K> LinkedHashMap<K, Integer> getTopCounts(KeyCounter<K> input, int limit) {
+        LinkedHashMap<K, Integer> output = new LinkedHashMap<>();
+        if (limit <= 0 || input.size() == 0) {
+            return output;
+        }
+
+        // The heap's head is the entry to evict first: the lowest count, or the latest one among equal counts
+        Comparator<RankedEntry<K, Integer>> heapOrder = Comparator.<RankedEntry<K, Integer>>comparingInt(RankedEntry::value)
+                .thenComparing(Comparator.comparingInt(RankedEntry<K, Integer>::order).reversed());
+        PriorityQueue<RankedEntry<K, Integer>> heap = new PriorityQueue<>(Math.min(limit, input.size()) + 1, heapOrder);
+        int[] order = {0};
+        input.forEach((key, count) -> {
+            if (heap.size() < limit) {
+                heap.add(new RankedEntry<>(key, count, order[0]));
+            } else if (count > heap.peek().value()) {
+                heap.poll();
+                heap.add(new RankedEntry<>(key, count, order[0]));
+            }
+            order[0]++;
+        });
+
+        List<RankedEntry<K, Integer>> selected = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            selected.add(heap.poll());
+        }
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            output.put(selected.get(i).key(), selected.get(i).value());
+        }
+        return output;
+    }
+
+    /**
+     * Selects the resources with the most calls
+     * @param resourceCallCounter A KeyCounter containing the number of times each resource was called
+     * @param limit The maximum number of resources to select
+     * @return A LinkedHashMap containing the selected resources as its keys and the number of times each resource was
+     * requested as its values, sorted by the number of calls in descending order
+     */
+    public static LinkedHashMap<String, Integer> getMostRequestedResources(KeyCounter<String> resourceCallCounter, int limit) {
+        return getTopCounts(resourceCallCounter, limit);
+    }
+
+    /**
+     * Selects the resources with the most failed calls. Lines that could not be parsed fail without a resource, and are
+     * counted under a null key, which is never selected.
+     * @param resourceFailCounter A KeyCounter containing the number of times each resource was called and failed
+     * @param limit The maximum number of resources to select
+     * @return A LinkedHashMap containing the selected resources as its keys and the number of times each resource call
+     * failed as its values, sorted by the number of failed calls in descending order
+     */
+    public static LinkedHashMap<String, Integer> getMostFailingResources(KeyCounter<String> resourceFailCounter, int limit) {
+        LinkedHashMap<String, Integer> top = getTopCounts(resourceFailCounter, (int) Math.min(Integer.MAX_VALUE, limit + 1L));
+        top.remove(null);
+        if (top.size() > limit) {
+            top.pollLastEntry();
+        }
+        return top;
+    }
+
+    /**
+     * Selects the hosts with the most requests
+     * @param requestsPerHost A Map of Strings and HostRequests containing the number of times each resource was
+     *                        requested by each host
+     * @param limit The maximum number of hosts to select
+     * @return A LinkedHashMap containing the selected hosts as its keys and the requests per host as its values,
+     * sorted by the total number of requests of each host in descending order
+     */
+    public static LinkedHashMap<String, HostRequests> getMostFrequentHosts(Map<String, HostRequests> requestsPerHost, int limit) {
+        return getTopEntries(requestsPerHost, limit,
+                Comparator.nullsFirst(Comparator.comparingInt(HostRequests::getTotalRequests)));
+    }
+
     /**
      * Sorts the resources contained in resourceCallCount by number of calls performed
-     * @param resourceCallCount A HashMap of Strings and Integers containing the number of times each resource was called
+     * @param resourceCallCount A Map of Strings and Integers containing the number of times each resource was called
      * @return A LinkedHashMap containing the resources as its keys and the number of times each resource was requested as
      * its values, sorted by the number of calls in descending order
      */
-    public static LinkedHashMap<String, Integer> sortResourcesByFrequency(HashMap<String, Integer> resourceCallCount) {
+    public static LinkedHashMap<String, Integer> sortResourcesByFrequency(Map<String, Integer> resourceCallCount) {
         return resourceCallCount.entrySet().stream()
                 .sorted(Map.Entry.comparingByValue(Comparator.nullsLast((e1, e2) -> e2 - e1)))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, _) -> e1, LinkedHashMap::new));
@@ -59,11 +491,11 @@ public class StatisticsCalculator {
 
     /**
      * Sorts the resources contained in resourceCallCount by number of calls performed
-     * @param resourceFailCount A HashMap of Strings and Integers containing the number of times each resource was called and failed
+     * @param resourceFailCount A Map of Strings and Integers containing the number of times each resource was called and failed
      * @return A LinkedHashMap containing the resources as its keys and the number of times each resource call failed
      * as its values, sorted by the number of failed calls in descending order
      */
-    public static LinkedHashMap<String, Integer> sortFailedResourcesByFrequency(HashMap<String, Integer> resourceFailCount) {
+    public static LinkedHashMap<String, Integer> sortFailedResourcesByFrequency(Map<String, Integer> resourceFailCount) {
         return resourceFailCount.entrySet().stream()
                 .sorted(Map.Entry.comparingByValue(Comparator.nullsLast((e1, e2) -> e2 - e1)))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, _) -> e1, LinkedHashMap::new));
@@ -71,23 +503,24 @@ public class StatisticsCalculator {
 
     /**
      * Sorts the hosts contained in requestsPerHost by number of requests performed
-     * @param requestsPerHost A HashMap of Strings and Lists of Strings containing the requests that were made by each host
-     * @return A LinkedHashMap containing the hosts as its keys and a list of resources per host as its values,
-     * sorted by the resource Lists' size in descending order
+     * @param requestsPerHost A HashMap of Strings and HostRequests containing the number of times each resource was
+     *                        requested by each host
+     * @return A LinkedHashMap containing the hosts as its keys and the requests per host as its values,
+     * sorted by the total number of requests of each host in descending order
      */
-    public static LinkedHashMap<String, List<String>> sortHostsByRequestFrequency(HashMap<String, List<String>> requestsPerHost) {
+    public static LinkedHashMap<String, HostRequests> sortHostsByRequestFrequency(HashMap<String, HostRequests> requestsPerHost) {
         return requestsPerHost.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.nullsLast((e1, e2) -> e2.size() - e1.size())))
+                .sorted(Map.Entry.comparingByValue(Comparator.nullsLast((e1, e2) -> e2.getTotalRequests() - e1.getTotalRequests())))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, _) -> e1, LinkedHashMap::new));
     }
 
     /**
      * Retrieves the requested resources for the top 10 most frequently appearing hosts
-     * @param hostsSortedByCallFrequency A LinkedHashMap containing the hosts as its keys and a list of resources per host
-     *                                   as its values, sorted by the resource Lists' size in descending order
+     * @param hostsSortedByCallFrequency A LinkedHashMap containing the hosts as its keys and the requests per host
+     *                                   as its values, sorted by the total number of requests in descending order
      * @return The first 10 entries found in the input LinkedHashMap
      */
-    public static LinkedHashMap<String, List<String>> getAllRequestsForTopHosts(LinkedHashMap<String, List<String>> hostsSortedByCallFrequency) {
+    public static LinkedHashMap<String, HostRequests> getAllRequestsForTopHosts(LinkedHashMap<String, HostRequests> hostsSortedByCallFrequency) {
         return hostsSortedByCallFrequency.entrySet().stream().limit(10)
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, _) -> e1, LinkedHashMap::new));
     }
@@ -114,24 +547,30 @@ public class StatisticsCalculator {
 
     /**
      * Calculates the number of calls for the top 5 resources that were called by the top 10 hosts
-     * @param top10HostResources A LinkedHashMap containing the top 10 hosts as its keys and a list of resources per host
-     *                           as its values, sorted by the resource Lists' size in descending order
+     * @param top10HostResources A LinkedHashMap containing the top 10 hosts as its keys and the requests per host
+     *                           as its values, sorted by the total number of requests in descending order
      * @return A LinkedHashMap containing the hosts as its keys, with a LinkedHashMap per host, which in turn contains
      * resource names as its keys and the number of calls per resource as its values - the entire structure corresponds
      * to the top 5 requested resources for each one of the top 10 hosts
      */
-    public static LinkedHashMap<String, LinkedHashMap<String, Long>> getFrequentRequestsPerHost(LinkedHashMap<String, List<String>> top10HostResources) {
-        LinkedHashMap<String, LinkedHashMap<String, Long>> top10HostRequests = new LinkedHashMap<>();
-        for (Map.Entry<String, List<String>> request : top10HostResources.entrySet()) {
-            Map<String, Long> hostRequests = request.getValue().stream().collect(Collectors.groupingBy(e -> e, Collectors.counting()));
-
-            LinkedHashMap<String, Long> sortedRequestsFrequency = hostRequests.entrySet().stream()
-                    .sorted(Map.Entry.comparingByValue(Comparator.nullsLast((e1, e2) -> (e2.intValue() - e1.intValue()))))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, _) -> e1, LinkedHashMap::new));
-
-            top10HostRequests.put(request.getKey(), sortedRequestsFrequency.entrySet().stream().limit(5)
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, _) -> e1, LinkedHashMap::new)));
+    public static LinkedHashMap<String, LinkedHashMap<String, Integer>> getFrequentRequestsPerHost(LinkedHashMap<String, HostRequests> top10HostResources) {
+        LinkedHashMap<String, LinkedHashMap<String, Integer>> top10HostRequests = new LinkedHashMap<>();
+        for (Map.Entry<String, HostRequests> request : top10HostResources.entrySet()) {
+            top10HostRequests.put(request.getKey(), getMostRequestedResources(request.getValue().getResourceCallCounter(), 5));
         }
         return top10HostRequests;
     }
+
+    /**
+     * An entry considered by {@link #getTopEntries(Map, int, Comparator)} or {@link #getTopCounts(KeyCounter, int)},
+     * along with its position in the input
+     */
+    private record RankedEntry<K, V>(K key, V value, int order) {
+    }
+
+    /**
+     * The resources of a host kept while scanning the columns into an approximate container, by id
+     */
+    private record HostScan(SpaceSavingCounter<Integer> resources, HyperLogLog uniqueResources) {
+    }
 }
@@ -0,0 +1,88 @@
+package logParser.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a dense int id to each distinct string, so that repeated values can be shared as a single canonical
+ * instance and counted by id. Id 0 is reserved for null. Lookups never block; adding a new value locks the table.
+ */
+public class SymbolTable {
+    /**
+     * The id of the null value
+     */
+    public static final int NULL_ID = 0;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[1024];
+    private int size = 1;
+
+    /**
+     * Retrieves the id of a value, adding the value to the table if it hasn't been seen before
+     * @param value A string, or null
+     * @return The id of the value
+     */
+    public int idOf(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        return id != null ? id : add(value);
+    }
+
+    /**
+     * Retrieves the id of a value without adding it to the table
+     * @param value A string, or null
+     * @return The id of the value, or -1 if it hasn't been seen before
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Retrieves the canonical instance of a value, adding the value to the table if it hasn't been seen before
+     * @param value A string, or null
+     * @return A string equal to the given value, shared by every caller
+     */
+    public String intern(String value) {
+        return valueOf(idOf(value));
+    }
+
+    /**
+     * @param id An id returned by {@link #idOf(String)}
+     * @return The value with the given id
+     */
+    public String valueOf(int id) {
+        return values[id];
+    }
+
+    /**
+     * @return The number of ids that have been assigned, including the id of null
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = ids.get(value);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = size;
+        String[] current = values;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            values = current;
+        }
+        current[id] = value;
+        size++;
+        // Publishing the id last guarantees that anyone who finds it can also read its value
+        ids.put(value, id);
+        return id;
+    }
+}
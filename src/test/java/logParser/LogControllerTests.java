@@ -3,30 +3,79 @@ package logParser;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.handler;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.web.servlet.mvc.method.annotation.MvcUriComponentsBuilder.on;
 
 import logParser.controller.LogController;
+import logParser.domainModel.RequestTimeline;
+import logParser.util.LogGenerator;
+import logParser.util.StatisticsAggregator;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.skyscreamer.jsonassert.*;
 import org.skyscreamer.jsonassert.comparator.CustomComparator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 class LogControllerTests {
 
+	private static final int DETAIL_CAPACITY = 100;
+
+	@TempDir
+	static Path directory;
+
+	/**
+	 * Starts the application on a generated log in a temporary directory and an in-memory database, so that the
+	 * endpoints are tested against the same requests on every run, whatever is stored locally
+	 */
+	@DynamicPropertySource
+	static void logProperties(DynamicPropertyRegistry registry) {
+		registry.add("logGetter.out.local.path", LogControllerTests::generateLog);
+		registry.add("spring.datasource.url", () -> "jdbc:h2:mem:logControllerTests;DB_CLOSE_DELAY=-1");
+		// Fewer than the generated resources, so that some resources have no distinct hosts or histograms
+		registry.add("logParser.statistics.approximate.capacity", () -> DETAIL_CAPACITY);
+	}
+
+	private static String generateLog() {
+		Path file = directory.resolve("access.log.gz");
+		try {
+			if (Files.notExists(file)) {
+				LogGenerator generator = new LogGenerator();
+				generator.setLines(20000);
+				generator.write(file);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return file.toString();
+	}
+
 	@Autowired
 	private LogController controller;
 
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private StatisticsAggregator aggregator;
+
 	@Test
 	void context_Loads() {
 		assertThat(controller).isNotNull();
@@ -45,7 +94,7 @@ class LogControllerTests {
 	void top10ResourcesGet_IsValidAndSucceeds() throws Exception {
 		mockMvc.perform(get("/top10Resources"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getMostRequestedResources()));
+				.andExpect(handler().methodCall(on(LogController.class).getMostRequestedResources(10)));
 
 		assertThat(status().is(200));
 	}
@@ -54,7 +103,7 @@ class LogControllerTests {
 	void successPercentageGet_IsValidAndSucceeds() throws Exception {
 		mockMvc.perform(get("/successPercentage"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getSuccessfulRequestPercentage()));
+				.andExpect(handler().methodCall(on(LogController.class).getSuccessfulRequestPercentage(null, null)));
 
 		assertThat(status().is(200));
 	}
@@ -63,7 +112,7 @@ class LogControllerTests {
 	void failPercentageGet_IsValidAndSucceeds() throws Exception {
 		mockMvc.perform(get("/failPercentage"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getFailedRequestPercentage()));
+				.andExpect(handler().methodCall(on(LogController.class).getFailedRequestPercentage(null, null)));
 
 		assertThat(status().is(200));
 	}
@@ -72,7 +121,7 @@ class LogControllerTests {
 	void top10FailingResourcesGet_IsValidAndSucceeds() throws Exception {
 		mockMvc.perform(get("/top10FailingResources"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyFailingResources()));
+				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyFailingResources(10)));
 
 		assertThat(status().is(200));
 	}
@@ -81,7 +130,7 @@ class LogControllerTests {
 	void top10HostsGet_IsValidAndSucceeds() throws Exception {
 		mockMvc.perform(get("/top10Hosts"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyAppearingHosts()));
+				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyAppearingHosts(10)));
 
 		assertThat(status().is(200));
 	}
@@ -115,7 +164,7 @@ class LogControllerTests {
 	void top10ResourcesGet_ReturnsJSONArrayWithStringResources() throws Exception {
 		MvcResult result = mockMvc.perform(get("/top10Resources"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getMostRequestedResources()))
+				.andExpect(handler().methodCall(on(LogController.class).getMostRequestedResources(10)))
 				.andReturn();
 		String expectedEntry = "{a:[{\"resource\":\"X\"}]}";
 		String content = "{a:" + result.getResponse().getContentAsString() + "}";
@@ -138,7 +187,7 @@ class LogControllerTests {
 	void top10ResourcesGet_ReturnsJSONArrayWithIntegerRequestCount() throws Exception {
 		MvcResult result = mockMvc.perform(get("/top10Resources"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getMostRequestedResources()))
+				.andExpect(handler().methodCall(on(LogController.class).getMostRequestedResources(10)))
 				.andReturn();
 		String expectedEntry = "{a:[{\"requests\":\"X\"}]}";
 		String content = "{a:" + result.getResponse().getContentAsString() + "}";
@@ -161,7 +210,7 @@ class LogControllerTests {
 	void successPercentageGet_ContainsNumber() throws Exception {
 		MvcResult result = mockMvc.perform(get("/successPercentage"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getSuccessfulRequestPercentage()))
+				.andExpect(handler().methodCall(on(LogController.class).getSuccessfulRequestPercentage(null, null)))
 				.andReturn();
 		String expectedContent = "{\"successful request percentage\":X}";
 		String content = result.getResponse().getContentAsString();
@@ -177,7 +226,7 @@ class LogControllerTests {
 	void failPercentageGet_ContainsNumber() throws Exception {
 		MvcResult result = mockMvc.perform(get("/failPercentage"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getFailedRequestPercentage()))
+				.andExpect(handler().methodCall(on(LogController.class).getFailedRequestPercentage(null, null)))
 				.andReturn();
 		String expectedContent = "{\"failed request percentage\":X}";
 		String content = result.getResponse().getContentAsString();
@@ -193,7 +242,7 @@ class LogControllerTests {
 	void top10FailingResourcesGet_ReturnsJSONArrayWithStringResources() throws Exception {
 		MvcResult result = mockMvc.perform(get("/top10FailingResources"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyFailingResources()))
+				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyFailingResources(10)))
 				.andReturn();
 		String expectedEntry = "{a:[{\"resource\":\"X\"}]}";
 		String content = "{a:" + result.getResponse().getContentAsString() + "}";
@@ -216,7 +265,7 @@ class LogControllerTests {
 	void top10HostsGet_ReturnsJSONArrayWithStringResources() throws Exception {
 		MvcResult result = mockMvc.perform(get("/top10Hosts"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyAppearingHosts()))
+				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyAppearingHosts(10)))
 				.andReturn();
 		String expectedEntry = "{a:[{\"host\":\"X\"}]}";
 		String content = "{a:" + result.getResponse().getContentAsString() + "}";
@@ -239,7 +288,7 @@ class LogControllerTests {
 	void top10HostsGet_ReturnsJSONArrayWithIntegerRequestCount() throws Exception {
 		MvcResult result = mockMvc.perform(get("/top10Hosts"))
 				.andExpect(handler().handlerType(LogController.class))
-				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyAppearingHosts()))
+				.andExpect(handler().methodCall(on(LogController.class).getFrequentlyAppearingHosts(10)))
 				.andReturn();
 		String expectedEntry = "{a:[{\"requests\":\"X\"}]}";
 		String content = "{a:" + result.getResponse().getContentAsString() + "}";
@@ -257,4 +306,234 @@ class LogControllerTests {
 
 		JSONAssert.assertEquals(expectedEntry, content, regExCustomArrayValueComparator);
 	}
+
+	@Test
+	void top10ResourcesGetWithLimit_ReturnsLimitEntries() throws Exception {
+		MvcResult result = mockMvc.perform(get("/top10Resources").param("limit", "3"))
+				.andExpect(handler().handlerType(LogController.class))
+				.andReturn();
+
+		JSONArray content = new JSONArray(result.getResponse().getContentAsString());
+		assertThat(content.length()).isEqualTo(3);
+	}
+
+	@Test
+	void top10FailingResourcesGet_MatchesLimitedRankingWithoutNulls() throws Exception {
+		JSONArray top10 = new JSONArray(mockMvc.perform(get("/top10FailingResources"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		JSONArray top11 = new JSONArray(mockMvc.perform(get("/top10FailingResources").param("limit", "11"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		for (int i = 0; i < top10.length(); i++) {
+			assertThat(top10.getJSONObject(i).isNull("resource")).isFalse();
+			assertThat(top10.getJSONObject(i).getString("resource")).isEqualTo(top11.getJSONObject(i).getString("resource"));
+		}
+	}
+
+	@Test
+	void statusClassesGet_ReturnsSixClassesCoveringAllRequests() throws Exception {
+		MvcResult result = mockMvc.perform(get("/statusClasses"))
+				.andExpect(handler().handlerType(LogController.class))
+				.andExpect(handler().methodCall(on(LogController.class).getStatusClasses(null, null)))
+				.andReturn();
+
+		JSONArray content = new JSONArray(result.getResponse().getContentAsString());
+		assertThat(content.length()).isEqualTo(6);
+		assertThat(content.getJSONObject(0).getString("status class")).isEqualTo("1xx");
+		assertThat(content.getJSONObject(5).getString("status class")).isEqualTo("unknown");
+	}
+
+	@Test
+	void ingestProgressGet_ReturnsFinishedFiles() throws Exception {
+		MvcResult result = mockMvc.perform(get("/ingestProgress"))
+				.andExpect(status().isOk())
+				.andExpect(handler().methodCall(on(LogController.class).getIngestProgress()))
+				.andReturn();
+
+		JSONArray content = new JSONArray(result.getResponse().getContentAsString());
+		for (int i = 0; i < content.length(); i++) {
+			assertThat(content.getJSONObject(i).getString("status")).isEqualTo("DONE");
+		}
+	}
+
+	@Test
+	void logsGetWithMatchingETag_ReturnsNotModified() throws Exception {
+		MvcResult first = mockMvc.perform(get("/logs"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("ETag"))
+				.andReturn();
+		String eTag = first.getResponse().getHeader("ETag");
+
+		mockMvc.perform(get("/logs").header("If-None-Match", eTag))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/logs").header("If-None-Match", "\"stale\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", eTag));
+		// A new snapshot with the same statistics is served with the same bytes, and so the same ETag
+		aggregator.publish();
+		MvcResult republished = mockMvc.perform(get("/logs").header("If-None-Match", eTag))
+				.andExpect(status().isNotModified())
+				.andReturn();
+
+		assertThat(republished.getResponse().getContentLength()).isZero();
+		assertThat(first.getResponse().getContentType()).startsWith("application/json");
+	}
+
+	@Test
+	void top10ResourcesGetCustomLimit_HasOwnETag() throws Exception {
+		String defaultETag = mockMvc.perform(get("/top10Resources"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		MvcResult custom = mockMvc.perform(get("/top10Resources").param("limit", "3"))
+				.andExpect(status().isOk())
+				.andReturn();
+		String customETag = custom.getResponse().getHeader("ETag");
+
+		mockMvc.perform(get("/top10Resources").param("limit", "3").header("If-None-Match", customETag))
+				.andExpect(status().isNotModified());
+		assertThat(customETag).isNotEqualTo(defaultETag);
+	}
+
+	@Test
+	void statusClassesGetWithPeriod_CountsRequestsOfPeriodOnly() throws Exception {
+		JSONArray all = new JSONArray(mockMvc.perform(get("/statusClasses")
+						.param("from", "1970-01-01T00:00:00Z"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		JSONArray none = new JSONArray(mockMvc.perform(get("/statusClasses")
+						.param("from", "1970-01-01T00:00:00Z")
+						.param("to", "1970-01-02T00:00:00Z"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		long requests = 0;
+		for (int i = 0; i < all.length(); i++) {
+			requests += all.getJSONObject(i).getLong("requests");
+		}
+		// Only the requests whose timestamp could be parsed are counted
+		assertThat(requests).isPositive().isLessThanOrEqualTo(aggregator.getStatistics().getAllRequests());
+		assertThat(none.length()).isZero();
+	}
+
+	@Test
+	void timelineGet_ReturnsBucketsOfInterval() throws Exception {
+		MvcResult result = mockMvc.perform(get("/timeline").param("interval", "DAY"))
+				.andExpect(status().isOk())
+				.andExpect(handler().methodCall(on(LogController.class).getTimeline(RequestTimeline.Interval.DAY, null, null)))
+				.andReturn();
+
+		JSONArray content = new JSONArray(result.getResponse().getContentAsString());
+		JSONArray statusClasses = new JSONArray(mockMvc.perform(get("/statusClasses")
+						.param("from", "1970-01-01T00:00:00Z"))
+				.andReturn().getResponse().getContentAsString());
+		int expected = 0;
+		for (int i = 0; i < statusClasses.length(); i++) {
+			expected += statusClasses.getJSONObject(i).getInt("requests");
+		}
+		int requests = 0;
+		for (int i = 0; i < content.length(); i++) {
+			JSONObject bucket = content.getJSONObject(i);
+			assertThat(Instant.parse(bucket.getString("start")).toEpochMilli() % 86_400_000L).isZero();
+			assertThat(bucket.getInt("successful") + bucket.getInt("failed")).isEqualTo(bucket.getInt("requests"));
+			requests += bucket.getInt("requests");
+		}
+		assertThat(requests).isEqualTo(expected);
+	}
+
+	@Test
+	void queryGet_CountsMatchingRequestsByGroup() throws Exception {
+		JSONObject all = new JSONObject(mockMvc.perform(get("/query").param("groupBy", "RESPONSE_CODE").param("limit", "100"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		JSONObject failed = new JSONObject(mockMvc.perform(get("/query")
+						.param("minResponseCode", "400")
+						.param("maxResponseCode", "499")
+						.param("groupBy", "HOST")
+						.param("limit", "3"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		assertThat(all.getInt("matched")).isEqualTo(aggregator.getStatistics().getAllRequests());
+		int failedRequests = 0;
+		for (int i = 0; i < all.getJSONArray("groups").length(); i++) {
+			JSONObject group = all.getJSONArray("groups").getJSONObject(i);
+			if (!group.isNull("response code") && group.getString("response code").startsWith("4")) {
+				failedRequests += group.getInt("requests");
+			}
+		}
+		assertThat(failed.getInt("matched")).isEqualTo(failedRequests);
+		assertThat(failed.getJSONArray("groups").length()).isLessThanOrEqualTo(3);
+		assertThat(failed.getJSONArray("groups").getJSONObject(0).has("host")).isTrue();
+	}
+
+	@Test
+	void uniqueHostsGet_EstimatesDistinctHosts() throws Exception {
+		JSONObject uniqueHosts = new JSONObject(mockMvc.perform(get("/uniqueHosts"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		JSONArray perResource = new JSONArray(mockMvc.perform(get("/uniqueHostsPerResource").param("limit", "3"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		JSONArray perHost = new JSONArray(mockMvc.perform(get("/uniqueResourcesPerHost"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		int hosts = aggregator.getStatistics().getRequestsPerHost().size();
+		assertThat(uniqueHosts.getLong("unique hosts")).isBetween(Math.round(hosts * 0.95), Math.round(hosts * 1.05));
+		assertThat(perResource.length()).isEqualTo(3);
+		for (int i = 0; i < perResource.length(); i++) {
+			assertThat(perResource.getJSONObject(i).getLong("unique hosts")).isPositive();
+		}
+		for (int i = 0; i < perHost.length(); i++) {
+			JSONObject host = perHost.getJSONObject(i);
+			assertThat(host.getLong("unique resources")).isPositive().isLessThanOrEqualTo(Math.round(host.getInt("requests") * 1.05));
+		}
+	}
+
+	@Test
+	void uniqueHostsPerResourceGet_ReportsNullWithoutSketch() throws Exception {
+		int limit = aggregator.getStatistics().getResourceCallCounter().size();
+		JSONArray perResource = new JSONArray(mockMvc.perform(get("/uniqueHostsPerResource").param("limit", String.valueOf(limit)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		assertThat(limit).isGreaterThan(DETAIL_CAPACITY);
+		int withSketch = 0;
+		for (int i = 0; i < perResource.length(); i++) {
+			JSONObject resource = perResource.getJSONObject(i);
+			assertThat(resource.getInt("requests")).isPositive();
+			if (!resource.isNull("unique hosts")) {
+				assertThat(resource.getLong("unique hosts")).isPositive();
+				withSketch++;
+			}
+		}
+		assertThat(withSketch).isEqualTo(DETAIL_CAPACITY);
+	}
+
+	@Test
+	void percentilesGet_ReturnsOrderedPercentiles() throws Exception {
+		JSONObject overall = new JSONObject(mockMvc.perform(get("/percentiles"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		String resource = aggregator.getStatistics().getTop10Resources().keySet().iterator().next();
+		JSONObject single = new JSONObject(mockMvc.perform(get("/percentiles").param("resource", resource))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		JSONObject missing = new JSONObject(mockMvc.perform(get("/percentiles").param("resource", "/missing"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		JSONObject bytes = overall.getJSONObject("bytes");
+		assertThat(bytes.getLong("count")).isPositive().isLessThanOrEqualTo(aggregator.getStatistics().getAllRequests());
+		assertThat(bytes.getLong("p50")).isLessThanOrEqualTo(bytes.getLong("p90"));
+		assertThat(bytes.getLong("p90")).isLessThanOrEqualTo(bytes.getLong("p99"));
+		assertThat(bytes.getLong("p99")).isLessThanOrEqualTo(bytes.getLong("max"));
+		assertThat(single.getString("resource")).isEqualTo(resource);
+		assertThat(single.getJSONObject("bytes").getLong("count")).isPositive().isLessThanOrEqualTo(bytes.getLong("count"));
+		assertThat(single.getJSONObject("bytes").getLong("max")).isLessThanOrEqualTo(bytes.getLong("max"));
+		assertThat(missing.getJSONObject("bytes").getLong("count")).isZero();
+		assertThat(missing.getJSONObject("response time").isNull("p50")).isTrue();
+	}
 }
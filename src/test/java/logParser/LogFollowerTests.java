@@ -0,0 +1,218 @@
+package logParser;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import logParser.dataModel.CheckpointEntity;
+import logParser.dataModel.RequestEntity;
+import logParser.repository.CheckpointRepository;
+import logParser.repository.RequestBulkRepository;
+import logParser.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@SpringBootTest
+public class LogFollowerTests {
+    private static final String LINE =
+            "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET /shuttle/countdown/ HTTP/1.0\" 200 1839\n";
+
+    @Test
+    void pollAppendedLines_StoresCompleteLinesOnly(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("access.log");
+        Files.writeString(file, LINE.repeat(3));
+        List<String> hosts = new ArrayList<>();
+        List<CheckpointEntity> checkpoints = new ArrayList<>();
+        StatisticsAggregator aggregator = aggregator();
+        LogFollower follower = follower(repository(hosts, checkpoints), checkpointRepository(null), aggregator);
+
+        follower.follow(file);
+        int first = follower.poll();
+        Files.writeString(file, LINE.repeat(2) + LINE.substring(0, 20), StandardOpenOption.APPEND);
+        int second = follower.poll();
+        Files.writeString(file, LINE.substring(20).replace("200", "404"), StandardOpenOption.APPEND);
+        int third = follower.poll();
+
+        assertEquals(3, first);
+        assertEquals(2, second);
+        assertEquals(1, third);
+        assertEquals(6, hosts.size());
+        assertEquals(6, aggregator.getStatistics().getAllRequests());
+        assertEquals(5, aggregator.getStatistics().getSuccessfulRequests());
+        CheckpointEntity last = checkpoints.get(checkpoints.size() - 1);
+        assertEquals(6, last.getLineNumber());
+        assertTrue(last.isComplete());
+    }
+
+    @Test
+    void pollManyLines_StoresBatchesOfBatchSize(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("access.log");
+        Files.writeString(file, LINE.repeat(25));
+        List<String> hosts = new ArrayList<>();
+        List<CheckpointEntity> checkpoints = new ArrayList<>();
+        LogFollower follower = follower(repository(hosts, checkpoints), checkpointRepository(null), aggregator());
+        ReflectionTestUtils.setField(follower, "batchSize", 10);
+
+        follower.follow(file);
+        int lines = follower.poll();
+
+        assertEquals(25, lines);
+        assertEquals(25, hosts.size());
+        assertEquals(List.of(10L, 20L, 25L), checkpoints.stream().map(CheckpointEntity::getLineNumber).toList());
+    }
+
+    @Test
+    void pollFailingBatch_KeepsEarlierBatchesStoredAndCounted(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("access.log");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            lines.append(LINE.replace("in24", "in" + i));
+        }
+        Files.writeString(file, lines);
+        List<String> hosts = new ArrayList<>();
+        List<CheckpointEntity> checkpoints = new ArrayList<>();
+        RequestBulkRepository repository = repository(hosts, checkpoints);
+        int[] calls = {0};
+        doAnswer(invocation -> {
+            if (++calls[0] == 2) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            List<RequestEntity> batch = invocation.getArgument(0);
+            batch.forEach(request -> hosts.add(request.getHost()));
+            checkpoints.add(invocation.getArgument(1));
+            return batch.size();
+        }).when(repository).saveAll(anyList(), any(CheckpointEntity.class));
+        StatisticsAggregator aggregator = aggregator();
+        LogFollower follower = follower(repository, checkpointRepository(null), aggregator);
+        ReflectionTestUtils.setField(follower, "batchSize", 10);
+
+        follower.follow(file);
+        assertThrows(IllegalStateException.class, follower::poll);
+        aggregator.publish();
+        long failed = aggregator.getStatistics().getAllRequests();
+        int retried = follower.poll();
+
+        assertEquals(10, failed);
+        assertEquals(15, retried);
+        assertEquals(25, hosts.size());
+        assertEquals(25, hosts.stream().distinct().count());
+        assertEquals(List.of(10L, 20L, 25L), checkpoints.stream().map(CheckpointEntity::getLineNumber).toList());
+        assertEquals(25, aggregator.getStatistics().getAllRequests());
+    }
+
+    @Test
+    void pollCarriageReturns_SplitsLinesLikeParseFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("access.log");
+        String line = LINE.trim();
+        Files.writeString(file, line + "\r" + line.replace("in24", "in25") + "\r");
+        List<String> hosts = new ArrayList<>();
+        List<Long> bytes = new ArrayList<>();
+        RequestBulkRepository repository = repository(hosts, new ArrayList<>());
+        doAnswer(invocation -> {
+            List<RequestEntity> batch = invocation.getArgument(0);
+            batch.forEach(request -> {
+                hosts.add(request.getHost());
+                bytes.add(request.getBytes());
+            });
+            return batch.size();
+        }).when(repository).saveAll(anyList(), any(CheckpointEntity.class));
+        LogFollower follower = follower(repository, checkpointRepository(null), aggregator());
+
+        follower.follow(file);
+        int first = follower.poll();
+        Files.writeString(file, "\n" + line.replace("in24", "in26") + "\r" + line.replace("in24", "in27") + "\n",
+                StandardOpenOption.APPEND);
+        int second = follower.poll();
+
+        assertEquals(1, first);
+        assertEquals(3, second);
+        assertEquals(List.of("in24.inetnebr.com", "in25.inetnebr.com", "in26.inetnebr.com", "in27.inetnebr.com"), hosts);
+        // No carriage return is left in the trailer, which would hide the response size
+        assertEquals(List.of(1839L, 1839L, 1839L, 1839L), bytes);
+    }
+
+    @Test
+    void followWithCheckpoint_SkipsStoredLines(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("access.log");
+        Files.writeString(file, LINE.repeat(4) + LINE.replace("in24", "in25"));
+        List<String> hosts = new ArrayList<>();
+        CheckpointEntity checkpoint = new CheckpointEntity(file.toString(), 4, 4, true);
+        LogFollower follower = follower(repository(hosts, new ArrayList<>()), checkpointRepository(checkpoint), aggregator());
+
+        follower.follow(file);
+        int lines = follower.poll();
+
+        assertEquals(1, lines);
+        assertEquals(List.of("in25.inetnebr.com"), hosts);
+    }
+
+    @Test
+    void pollRotatedFile_ReadsOldFileToTheEndThenNewFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("access.log");
+        Files.writeString(file, LINE.repeat(2));
+        List<String> hosts = new ArrayList<>();
+        List<CheckpointEntity> checkpoints = new ArrayList<>();
+        LogFollower follower = follower(repository(hosts, checkpoints), checkpointRepository(null), aggregator());
+
+        follower.follow(file);
+        follower.poll();
+        Files.writeString(file, LINE.replace("in24", "in25").trim(), StandardOpenOption.APPEND);
+        Files.move(file, directory.resolve("access.log.1"));
+        Files.writeString(file, LINE.replace("in24", "in26"));
+        int lines = follower.poll();
+        Files.writeString(file, "", StandardOpenOption.TRUNCATE_EXISTING);
+        Files.writeString(file, LINE.replace("in24.inetnebr", "in27"), StandardOpenOption.APPEND);
+        int truncated = follower.poll();
+
+        assertEquals(2, lines);
+        assertEquals(1, truncated);
+        assertEquals(List.of("in24.inetnebr.com", "in24.inetnebr.com", "in25.inetnebr.com", "in26.inetnebr.com",
+                "in27.com"), hosts);
+        assertEquals(1, checkpoints.get(checkpoints.size() - 1).getLineNumber());
+    }
+
+    private static StatisticsAggregator aggregator() {
+        StatisticsAggregator aggregator = new StatisticsAggregator();
+        ReflectionTestUtils.setField(aggregator, "dictionary", new LogDictionary());
+        ReflectionTestUtils.setField(aggregator, "publishIntervalMillis", 0L);
+        return aggregator;
+    }
+
+    private static RequestBulkRepository repository(List<String> hosts, List<CheckpointEntity> checkpoints) {
+        RequestBulkRepository repository = mock(RequestBulkRepository.class);
+        doAnswer(invocation -> {
+            List<RequestEntity> batch = invocation.getArgument(0);
+            batch.forEach(request -> hosts.add(request.getHost()));
+            checkpoints.add(invocation.getArgument(1));
+            return batch.size();
+        }).when(repository).saveAll(anyList(), any(CheckpointEntity.class));
+        return repository;
+    }
+
+    private static CheckpointRepository checkpointRepository(CheckpointEntity checkpoint) {
+        CheckpointRepository checkpointRepository = mock(CheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenReturn(Optional.ofNullable(checkpoint));
+        return checkpointRepository;
+    }
+
+    private static LogFollower follower(RequestBulkRepository repository, CheckpointRepository checkpointRepository,
+                                        StatisticsAggregator aggregator) {
+        LogFollower follower = new LogFollower();
+        ReflectionTestUtils.setField(follower, "parser", new LogParser());
+        ReflectionTestUtils.setField(follower, "requestBulkRepository", repository);
+        ReflectionTestUtils.setField(follower, "checkpointRepository", checkpointRepository);
+        ReflectionTestUtils.setField(follower, "aggregator", aggregator);
+        return follower;
+    }
+}
@@ -0,0 +1,111 @@
+package logParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.*;
+
+import logParser.dataModel.RequestEntity;
+import logParser.domainModel.StatisticsContainer;
+import logParser.util.LogGenerator;
+import logParser.util.LogParser;
+import logParser.util.StatisticsCalculator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+@SpringBootTest
+public class LogGeneratorTests {
+    @Autowired
+    private LogParser parser;
+
+    @Test
+    void writeZippedSameSeed_ProducesSameBytes() throws IOException {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        LogGenerator generator = generator(5000);
+
+        generator.writeZipped(first);
+        generator.writeZipped(second);
+
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+    }
+
+    @Test
+    void writeZippedNoMalformedLines_AllLinesAreParsed() throws IOException {
+        LogGenerator generator = generator(10000);
+        generator.setMalformedRatio(0);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = generator.writeZipped(output);
+        List<RequestEntity> requests = parser.unZipFile(output.toByteArray());
+
+        assertEquals(10000, written);
+        assertEquals(10000, requests.size());
+        assertTrue(requests.stream().allMatch(RequestEntity::validFieldsExist));
+    }
+
+    @Test
+    void writeZippedRatios_AreReflectedInParsedRequests() throws IOException {
+        LogGenerator generator = generator(20000);
+        generator.setMalformedRatio(0.1);
+        generator.setErrorRatio(0.2);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        generator.writeZipped(output);
+        List<RequestEntity> requests = parser.unZipFile(output.toByteArray());
+        long malformed = requests.stream().filter(request -> !request.validFieldsExist()).count();
+        long failed = requests.stream().filter(request -> request.validFieldsExist() && !request.isSuccessful()).count();
+
+        assertThat(malformed).isBetween(1700L, 2300L);
+        assertThat(failed).isBetween(3200L, 4000L);
+    }
+
+    @Test
+    void writeZippedCardinalityAndSkew_LimitDistinctValues() throws IOException {
+        LogGenerator generator = generator(20000);
+        generator.setHosts(100);
+        generator.setResources(50);
+        generator.setHostSkew(1.2);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        generator.writeZipped(output);
+        StatisticsContainer statistics = StatisticsCalculator.createBaseStatisticsContainer(parser.unZipFile(output.toByteArray()));
+        StatisticsCalculator.calculateRankings(statistics);
+        int topHostRequests = statistics.getTop10HostResources().values().iterator().next().getTotalRequests();
+
+        assertThat(statistics.getRequestsPerHost().size()).isLessThanOrEqualTo(101);
+        assertThat(statistics.getResourceCallCount().size()).isLessThanOrEqualTo(51);
+        assertThat(topHostRequests).isGreaterThan(20000 / 100 * 10);
+    }
+
+    @Test
+    void writeSize_StopsAfterReachingSize() throws IOException {
+        LogGenerator generator = generator(0);
+        generator.setSize(100_000);
+        StringWriter writer = new StringWriter();
+
+        long written = generator.write(writer);
+
+        assertThat(writer.getBuffer().length()).isBetween(100_000, 100_300);
+        assertEquals(written, writer.toString().lines().count());
+    }
+
+    @Test
+    void mainMissingOutput_ThrowsException() {
+        Throwable thrown = catchThrowable(() -> LogGenerator.main(new String[]{"--lines=10"}));
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LogGenerator generator(long lines) {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(lines);
+        generator.setSeed(42);
+        return generator;
+    }
+}
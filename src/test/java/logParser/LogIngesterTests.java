@@ -0,0 +1,165 @@
+package logParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import logParser.dataModel.CheckpointEntity;
+import logParser.dataModel.RequestEntity;
+import logParser.domainModel.FileProgress;
+import logParser.domainModel.StatisticsContainer;
+import logParser.repository.CheckpointRepository;
+import logParser.repository.RequestBulkRepository;
+import logParser.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@SpringBootTest
+public class LogIngesterTests {
+    @Test
+    void ingestSeveralFiles_MergesStatisticsOfEveryFile(@TempDir Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        StatisticsContainer expected = new StatisticsContainer();
+        for (int i = 0; i < 3; i++) {
+            LogGenerator generator = new LogGenerator();
+            generator.setLines(2000 + i * 500);
+            generator.setSeed(i);
+            generator.setZipped(i != 1);
+            Path file = directory.resolve("access-" + i + ".log");
+            generator.write(file);
+            files.add(file);
+            new LogParser().parseFile(file, request -> StatisticsCalculator.addRequest(expected, request));
+        }
+        files.add(directory.resolve("missing.log"));
+        RequestBulkRepository repository = mock(RequestBulkRepository.class);
+        StatisticsAggregator aggregator = new StatisticsAggregator();
+        ReflectionTestUtils.setField(aggregator, "dictionary", new LogDictionary());
+        LogIngester ingester = ingester(repository, mock(CheckpointRepository.class), aggregator);
+
+        long lines = ingester.ingest(files);
+        aggregator.publish();
+        StatisticsContainer actual = aggregator.getStatistics();
+
+        assertEquals(7500, lines);
+        assertEquals(expected.getAllRequests(), actual.getAllRequests());
+        assertEquals(expected.getSuccessfulRequests(), actual.getSuccessfulRequests());
+        assertArrayEquals(expected.getStatusClassCount(), actual.getStatusClassCount());
+        assertEquals(expected.getResourceCallCount(), actual.getResourceCallCount());
+        assertEquals(expected.getResourceFailCount(), actual.getResourceFailCount());
+        assertEquals(expected.getRequestsPerHost().size(), actual.getRequestsPerHost().size());
+        expected.getRequestsPerHost().forEach((host, requests) -> {
+            assertEquals(requests.getTotalRequests(), actual.getRequestsPerHost().get(host).getTotalRequests());
+            assertEquals(requests.getResourceCallCount(), actual.getRequestsPerHost().get(host).getResourceCallCount());
+        });
+        verify(repository, atLeast(3)).saveAll(anyList(), any(CheckpointEntity.class));
+    }
+
+    @Test
+    void ingestMissingFile_TracksProgressPerFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("access.log.gz");
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(1000);
+        generator.write(file);
+        StatisticsAggregator aggregator = new StatisticsAggregator();
+        ReflectionTestUtils.setField(aggregator, "dictionary", new LogDictionary());
+        LogIngester ingester = ingester(mock(RequestBulkRepository.class), mock(CheckpointRepository.class), aggregator);
+
+        ingester.ingest(List.of(file, directory.resolve("missing.log.gz")));
+        List<FileProgress> progress = new ArrayList<>(ingester.getProgress());
+
+        assertEquals(2, progress.size());
+        assertEquals(file.toString(), progress.get(0).getFile());
+        assertEquals(FileProgress.Status.DONE, progress.get(0).getStatus());
+        assertEquals(1000, progress.get(0).getLines());
+        assertEquals(Files.size(file), progress.get(0).getBytes());
+        assertEquals(FileProgress.Status.FAILED, progress.get(1).getStatus());
+        assertEquals(0, progress.get(1).getLines());
+    }
+
+    @Test
+    void ingestFilesWithCheckpoints_ResumesAfterLastCommittedLine(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(3000);
+        Path partial = directory.resolve("access-0.log.gz");
+        Path complete = directory.resolve("access-1.log.gz");
+        generator.write(partial);
+        generator.write(complete);
+        List<RequestEntity> remaining = new ArrayList<>();
+        new LogParser().parseFile(partial, request -> remaining.add(request));
+        remaining.subList(0, 1000).clear();
+        StatisticsContainer expected = new StatisticsContainer();
+        remaining.forEach(request -> StatisticsCalculator.addRequest(expected, request));
+        RequestBulkRepository repository = mock(RequestBulkRepository.class);
+        CheckpointRepository checkpointRepository = mock(CheckpointRepository.class);
+        when(checkpointRepository.findById(partial.toString()))
+                .thenReturn(Optional.of(new CheckpointEntity(partial.toString(), 1000, 1000, false)));
+        when(checkpointRepository.findById(complete.toString()))
+                .thenReturn(Optional.of(new CheckpointEntity(complete.toString(), 3000, 3000, true)));
+        StatisticsAggregator aggregator = new StatisticsAggregator();
+        ReflectionTestUtils.setField(aggregator, "dictionary", new LogDictionary());
+        LogIngester ingester = ingester(repository, checkpointRepository, aggregator);
+        List<CheckpointEntity> checkpoints = new ArrayList<>();
+        List<String> hosts = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<RequestEntity> batch = invocation.getArgument(0);
+            batch.forEach(request -> hosts.add(request.getHost()));
+            checkpoints.add(invocation.getArgument(1));
+            return batch.size();
+        }).when(repository).saveAll(anyList(), any(CheckpointEntity.class));
+
+        long lines = ingester.ingest(List.of(partial, complete));
+        aggregator.publish();
+        List<FileProgress> progress = new ArrayList<>(ingester.getProgress());
+
+        assertEquals(2000, lines);
+        assertEquals(remaining.stream().map(RequestEntity::getHost).toList(), hosts);
+        assertEquals(expected.getAllRequests(), aggregator.getStatistics().getAllRequests());
+        assertEquals(expected.getResourceCallCount(), aggregator.getStatistics().getResourceCallCount());
+        CheckpointEntity last = checkpoints.get(checkpoints.size() - 1);
+        assertEquals(List.of(1500L, 2000L, 2500L, 3000L, 3000L),
+                checkpoints.stream().map(CheckpointEntity::getLineNumber).toList());
+        assertTrue(last.isComplete());
+        assertEquals(3000, last.getRowsCommitted());
+        assertEquals(3000, progress.get(0).getLines());
+        assertEquals(FileProgress.Status.DONE, progress.get(1).getStatus());
+    }
+
+    @Test
+    void retrieveLogsLocalGlob_ReturnsMatchingFilesSortedByName(@TempDir Path directory) throws IOException {
+        Files.writeString(directory.resolve("access_log_Aug95.gz"), "");
+        Files.writeString(directory.resolve("access_log_Jul95.gz"), "");
+        Files.writeString(directory.resolve("notes.txt"), "");
+        LogLoader loader = new LogLoader();
+
+        ReflectionTestUtils.setField(loader, "localPath", directory + "/access_log_*.gz");
+        List<Path> glob = loader.retrieveLogs();
+        ReflectionTestUtils.setField(loader, "localPath", directory.toString());
+        List<Path> all = loader.retrieveLogs();
+
+        assertEquals(List.of(directory.resolve("access_log_Aug95.gz"), directory.resolve("access_log_Jul95.gz")), glob);
+        assertThat(all).hasSize(3);
+    }
+
+    private static LogIngester ingester(RequestBulkRepository repository, CheckpointRepository checkpointRepository,
+                                        StatisticsAggregator aggregator) {
+        LogIngester ingester = new LogIngester();
+        ReflectionTestUtils.setField(ingester, "parser", new LogParser());
+        ReflectionTestUtils.setField(ingester, "requestBulkRepository", repository);
+        ReflectionTestUtils.setField(ingester, "checkpointRepository", checkpointRepository);
+        ReflectionTestUtils.setField(ingester, "aggregator", aggregator);
+        ReflectionTestUtils.setField(ingester, "batchSize", 500);
+        ReflectionTestUtils.setField(ingester, "filesParallelism", 3);
+        return ingester;
+    }
+}
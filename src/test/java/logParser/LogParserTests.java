@@ -2,14 +2,46 @@ package logParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.*;
 
 import logParser.dataModel.RequestEntity;
+import logParser.util.ClfTimestamp;
+import logParser.util.LogGenerator;
 import logParser.util.LogParser;
+import logParser.util.MappedLogReader;
+import logParser.util.ParallelGZIPInputStream;
+import logParser.util.SymbolTable;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @SpringBootTest
 public class LogParserTests {
@@ -107,6 +139,474 @@ public class LogParserTests {
         assertThat(((RequestEntity)result).getHost().equals("in24.inetnebr.com"));
         assertThat(((RequestEntity)result).getHttpVerb().equals("GET"));
         assertThat(((RequestEntity)result).getResource().equals("/shuttle/missions/sts-68/news/sts-68-mcc-05.txt"));
-        assertThat(((RequestEntity)result).getResponseCode().equals("200"));
+        assertThat(((RequestEntity)result).getResponseCode().equals(200));
+    }
+
+    @Test
+    void unZipStreamValidInput_EmitsEachLineInOrder() throws IOException {
+        LogParser parser = new LogParser();
+        String input = "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET /shuttle/missions/sts-68/news/sts-68-mcc-05.txt HTTP/1.0\" 200 1839\n"
+                + "uplherc.upl.com - - [01/Aug/1995:00:00:07 -0400] \"GET / HTTP/1.0\" 304 0\n"
+                + "test\n";
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gZIPOutputStream = new GZIPOutputStream(zipped)) {
+            gZIPOutputStream.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        List<RequestEntity> result = new ArrayList<>();
+
+        long lines = parser.unZipStream(new ByteArrayInputStream(zipped.toByteArray()), result::add);
+
+        assertEquals(3, lines);
+        assertEquals(3, result.size());
+        assertEquals("in24.inetnebr.com", result.get(0).getHost());
+        assertEquals("uplherc.upl.com", result.get(1).getHost());
+        assertNull(result.get(2).getHost());
+    }
+
+    @Test
+    void unZipStreamNullInput_EmitsNothing() {
+        LogParser parser = new LogParser();
+        List<RequestEntity> result = new ArrayList<>();
+
+        long lines = parser.unZipStream(null, result::add);
+
+        assertEquals(0, lines);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void parseEntryScannerEngine_MatchesRegexEngine() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        LogParser scannerParser = new LogParser();
+        LogParser regexParser = new LogParser();
+        ReflectionTestUtils.setField(regexParser, "engine", LogParser.Engine.REGEX);
+        Method method = LogParser.class.getDeclaredMethod("parseEntry", String.class );
+        method.setAccessible(true);
+        String[] inputs = {
+                "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET /shuttle/missions/sts-68/news/sts-68-mcc-05.txt HTTP/1.0\" 200 1839",
+                "199.1.60.95 - - [13/Aug/1995:21:48:56 -0400] \"GET /://spacelink.msfc.nasa.gov HTTP/1.0\" 404 -",
+                "derec - - [01/Aug/1995:11:53:44 -0400] \"GET /ksc.html HTTP/1.0\" 200 7280",
+                "pipe1.nyc.pipeline.com - - [01/Aug/1995:00:12:37 -0400] \"GET /history/apollo/apollo-13/apollo-13-patch-small.gif\" 200 12859",
+                "pipe1.nyc.pipeline.com - - [01/Aug/1995:00:12:37 -0400] \"GET /history/apollo/ HTTP/1.0\" - 12859",
+                " - - [01/Aug/1995:11:53:44 -0400] \"GET /ksc.html HTTP/1.0\" 200 7280",
+                "garbage in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"POST /cgi-bin/imagemap HTTP/1.0\" 302 0",
+                "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"get / HTTP/1.0\" 200 1839",
+                "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET / HTTP/1.0\" 200 ",
+                "test",
+                ""
+        };
+
+        for (String input : inputs) {
+            RequestEntity scanned = (RequestEntity) method.invoke(scannerParser, input);
+            RequestEntity matched = (RequestEntity) method.invoke(regexParser, input);
+
+            assertEquals(matched.getHost(), scanned.getHost(), input);
+            assertEquals(matched.getHttpVerb(), scanned.getHttpVerb(), input);
+            assertEquals(matched.getResource(), scanned.getResource(), input);
+            assertEquals(matched.getResponseCode(), scanned.getResponseCode(), input);
+            assertEquals(matched.getTimestamp(), scanned.getTimestamp(), input);
+            assertEquals(matched.getBytes(), scanned.getBytes(), input);
+            assertEquals(matched.getResponseTime(), scanned.getResponseTime(), input);
+        }
+    }
+
+    @Test
+    void clfTimestamp_MatchesDateTimeFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+        String[] inputs = {
+                "01/Aug/1995:00:00:01 -0400",
+                "31/Dec/1999:23:59:59 +0000",
+                "29/Feb/2000:12:30:00 +0530",
+                "01/Jan/1970:00:00:00 +0100",
+                "15/Jul/2026:08:05:09 -1100"
+        };
+
+        for (String input : inputs) {
+            String line = "[" + input + "]";
+            long expected = ZonedDateTime.parse(input, formatter).toInstant().toEpochMilli();
+
+            assertEquals(expected, ClfTimestamp.parse(line, 1, line.length() - 1), input);
+        }
+    }
+
+    @Test
+    void clfTimestampInvalidInput_ReturnsInvalid() {
+        String[] inputs = {
+                "01/Aug/1995:00:00:01",
+                "01/aug/1995:00:00:01 -0400",
+                "29/Feb/1900:00:00:01 -0400",
+                "31/Apr/1995:00:00:01 -0400",
+                "01/Aug/1995:24:00:01 -0400",
+                "01/Aug/1995:00:00:01 04000",
+                "0x/Aug/1995:00:00:01 -0400"
+        };
+
+        for (String input : inputs) {
+            assertEquals(ClfTimestamp.INVALID, ClfTimestamp.parse(input, 0, input.length()), input);
+        }
+    }
+
+    @Test
+    void parseEntryValidInput_ParsesTimestamp() {
+        LogParser parser = new LogParser();
+
+        RequestEntity result = parser.parseEntry("in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET / HTTP/1.0\" 200 1839");
+
+        assertEquals(Instant.parse("1995-08-01T04:00:01Z").toEpochMilli(), result.getTimestamp());
+        assertNull(parser.parseEntry("in24.inetnebr.com - - [yesterday] \"GET / HTTP/1.0\" 200 1839").getTimestamp());
+    }
+
+    @Test
+    void parseEntryTrailer_ParsesBytesAndResponseTime() {
+        LogParser parser = new LogParser();
+        String request = "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET / HTTP/1.0\" 200 ";
+
+        RequestEntity common = parser.parseEntry(request + "1839");
+        RequestEntity extended = parser.parseEntry(request + "1839 5120");
+        RequestEntity noBytes = parser.parseEntry(request + "- 87");
+        RequestEntity combined = parser.parseEntry(request + "1839 \"http://www.nasa.gov/\" \"Mozilla/2.0\"");
+
+        assertEquals(1839L, common.getBytes());
+        assertNull(common.getResponseTime());
+        assertEquals(1839L, extended.getBytes());
+        assertEquals(5120L, extended.getResponseTime());
+        assertNull(noBytes.getBytes());
+        assertEquals(87L, noBytes.getResponseTime());
+        assertEquals(1839L, combined.getBytes());
+        assertNull(combined.getResponseTime());
+    }
+
+    @Test
+    void unZipStreamParallel_EmitsSameEntitiesInOrder() throws IOException {
+        LogParser sequentialParser = new LogParser();
+        LogParser parallelParser = new LogParser();
+        ReflectionTestUtils.setField(parallelParser, "parallelism", 4);
+        ReflectionTestUtils.setField(parallelParser, "batchLines", 3);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            input.append("host").append(i).append(".inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET /resource/")
+                    .append(i % 7).append(" HTTP/1.0\" ").append(i % 5 == 0 ? "404" : "200").append(" 1839\n");
+        }
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gZIPOutputStream = new GZIPOutputStream(zipped)) {
+            gZIPOutputStream.write(input.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        List<RequestEntity> sequential = new ArrayList<>();
+        List<RequestEntity> parallel = new ArrayList<>();
+
+        long sequentialLines = sequentialParser.unZipStream(new ByteArrayInputStream(zipped.toByteArray()), sequential::add);
+        long parallelLines = parallelParser.unZipStream(new ByteArrayInputStream(zipped.toByteArray()), parallel::add);
+
+        assertEquals(50, sequentialLines);
+        assertEquals(sequentialLines, parallelLines);
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getHost(), parallel.get(i).getHost());
+            assertEquals(sequential.get(i).getResource(), parallel.get(i).getResource());
+            assertEquals(sequential.get(i).getResponseCode(), parallel.get(i).getResponseCode());
+        }
+    }
+
+    @Test
+    void parseEntryRepeatedValues_ShareCanonicalInstances() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        LogParser parser = new LogParser();
+        Method method = parser.getClass().getDeclaredMethod("parseEntry", String.class );
+        method.setAccessible(true);
+        String first = "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET /shuttle/countdown/ HTTP/1.0\" 200 1839";
+        String second = "in24.inetnebr.com - - [01/Aug/1995:00:00:09 -0400] \"GET /shuttle/countdown/ HTTP/1.0\" 304 0";
+        String other = "uplherc.upl.com - - [01/Aug/1995:00:00:07 -0400] \"GET / HTTP/1.0\" 304 0";
+
+        RequestEntity firstResult = (RequestEntity) method.invoke(parser, first);
+        RequestEntity secondResult = (RequestEntity) method.invoke(parser, second);
+        RequestEntity otherResult = (RequestEntity) method.invoke(parser, other);
+        RequestEntity invalidResult = (RequestEntity) method.invoke(parser, "test");
+
+        assertSame(firstResult.getHost(), secondResult.getHost());
+        assertSame(firstResult.getResource(), secondResult.getResource());
+        assertSame(firstResult.getHttpVerb(), otherResult.getHttpVerb());
+        assertEquals(firstResult.getHostId(), secondResult.getHostId());
+        assertEquals(firstResult.getResourceId(), secondResult.getResourceId());
+        assertNotEquals(firstResult.getHostId(), otherResult.getHostId());
+        assertEquals(SymbolTable.NULL_ID, invalidResult.getHostId());
+        assertEquals(SymbolTable.NULL_ID, invalidResult.getResourceId());
+    }
+
+    @Test
+    void parseFilePlainText_MatchesZippedFile(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(5000);
+        generator.setMalformedRatio(0.05);
+        Path zippedFile = directory.resolve("access.log.gz");
+        Path plainFile = directory.resolve("access.log");
+        generator.write(zippedFile);
+        generator.setZipped(false);
+        generator.write(plainFile);
+        LogParser parallelParser = new LogParser();
+        ReflectionTestUtils.setField(parallelParser, "parallelism", 4);
+        ReflectionTestUtils.setField(parallelParser, "regionBytes", 4096);
+        List<RequestEntity> zipped = new ArrayList<>();
+        List<RequestEntity> plain = new ArrayList<>();
+
+        long zippedLines = new LogParser().parseFile(zippedFile, zipped::add);
+        long plainLines = parallelParser.parseFile(plainFile, plain::add);
+
+        assertEquals(5000, zippedLines);
+        assertEquals(zippedLines, plainLines);
+        assertEquals(zipped.size(), plain.size());
+        for (int i = 0; i < zipped.size(); i++) {
+            assertEquals(zipped.get(i).getHost(), plain.get(i).getHost());
+            assertEquals(zipped.get(i).getHttpVerb(), plain.get(i).getHttpVerb());
+            assertEquals(zipped.get(i).getResource(), plain.get(i).getResource());
+            assertEquals(zipped.get(i).getResponseCode(), plain.get(i).getResponseCode());
+        }
+    }
+
+    @Test
+    void parseFilePlainTextLineTerminators_SplitsLikeUnZipStream(@TempDir Path directory) throws IOException {
+        String line = "in24.inetnebr.com - - [01/Aug/1995:00:00:01 -0400] \"GET /shuttle/countdown/ HTTP/1.0\" 200 1839";
+        String input = line + "\r\n" + line.replace("200", "404") + "\r" + "test\n\n"
+                + line.replace("in24", "\u00e9t\u00e9") + "\n" + line.replace("1839", "-");
+        Path plainFile = directory.resolve("access.log");
+        Files.writeString(plainFile, input, StandardCharsets.UTF_8);
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gZIPOutputStream = new GZIPOutputStream(zipped)) {
+            gZIPOutputStream.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        List<RequestEntity> fromStream = new ArrayList<>();
+        List<RequestEntity> fromFile = new ArrayList<>();
+
+        long streamLines = new LogParser().unZipStream(new ByteArrayInputStream(zipped.toByteArray()), fromStream::add);
+        long fileLines = new LogParser().parseFile(plainFile, fromFile::add);
+
+        assertEquals(6, streamLines);
+        assertEquals(streamLines, fileLines);
+        for (int i = 0; i < fromStream.size(); i++) {
+            assertEquals(fromStream.get(i).getHost(), fromFile.get(i).getHost());
+            assertEquals(fromStream.get(i).getResponseCode(), fromFile.get(i).getResponseCode());
+        }
+        assertEquals("\u00e9t\u00e9.inetnebr.com", fromFile.get(4).getHost());
+    }
+
+    @Test
+    void parseFileSkipLines_EmitsOnlyRemainingLines(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(3000);
+        Path zippedFile = directory.resolve("access.log.gz");
+        Path plainFile = directory.resolve("access.log");
+        generator.write(zippedFile);
+        generator.setZipped(false);
+        generator.write(plainFile);
+        LogParser parallelParser = new LogParser();
+        ReflectionTestUtils.setField(parallelParser, "parallelism", 4);
+        ReflectionTestUtils.setField(parallelParser, "regionBytes", 4096);
+        List<RequestEntity> all = new ArrayList<>();
+        List<RequestEntity> zipped = new ArrayList<>();
+        List<RequestEntity> plain = new ArrayList<>();
+
+        new LogParser().parseFile(zippedFile, all::add);
+        long zippedLines = new LogParser().parseFile(zippedFile, 1234, zipped::add);
+        long plainLines = parallelParser.parseFile(plainFile, 1234, plain::add);
+        long pastEnd = parallelParser.parseFile(plainFile, 5000, _ -> fail());
+
+        assertEquals(3000 - 1234, zippedLines);
+        assertEquals(zippedLines, plainLines);
+        assertEquals(0, pastEnd);
+        for (int i = 0; i < zipped.size(); i++) {
+            assertEquals(all.get(1234 + i).getHost(), zipped.get(i).getHost());
+            assertEquals(all.get(1234 + i).getHost(), plain.get(i).getHost());
+            assertEquals(all.get(1234 + i).getResource(), plain.get(i).getResource());
+        }
+    }
+
+    @Test
+    void mappedLogReaderSmallMappings_ReturnsWholeLinesCoveringFile(@TempDir Path directory) throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            input.append("line ").append("x".repeat(i % 37)).append('\n');
+        }
+        input.append("last line without terminator");
+        Path plainFile = directory.resolve("access.log");
+        Files.writeString(plainFile, input);
+        ByteArrayOutputStream regions = new ByteArrayOutputStream();
+
+        try (FileChannel channel = FileChannel.open(plainFile)) {
+            MappedLogReader reader = new MappedLogReader(channel, 100, 1000);
+            ByteBuffer region;
+            while ((region = reader.nextRegion()) != null) {
+                byte[] bytes = new byte[region.remaining()];
+                region.get(bytes);
+                String text = new String(bytes, StandardCharsets.UTF_8);
+                assertTrue(text.endsWith("\n") || text.endsWith("terminator"));
+                regions.write(bytes);
+            }
+        }
+
+        assertEquals(input.toString(), regions.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parallelGZIPInputStreamMultipleMembers_MatchesGZIPInputStream(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(5000);
+        generator.setMemberLines(100);
+        Path zippedFile = directory.resolve("access.log.gz");
+        generator.write(zippedFile);
+
+        byte[] parallel;
+        try (FileChannel channel = FileChannel.open(zippedFile);
+             InputStream inputStream = new ParallelGZIPInputStream(channel, 4)) {
+            parallel = inputStream.readAllBytes();
+        }
+
+        assertArrayEquals(unZip(zippedFile), parallel);
+    }
+
+    @Test
+    void parallelGZIPInputStreamBgzfBlocks_MatchesGZIPInputStream(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(5000);
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(plain, StandardCharsets.US_ASCII);
+        generator.write(writer);
+        writer.flush();
+        Path zippedFile = directory.resolve("access.log.bgz");
+        Files.write(zippedFile, bgzf(plain.toByteArray(), 20000));
+
+        byte[] parallel;
+        try (FileChannel channel = FileChannel.open(zippedFile);
+             InputStream inputStream = new ParallelGZIPInputStream(channel, 4)) {
+            parallel = inputStream.readAllBytes();
+        }
+
+        assertArrayEquals(plain.toByteArray(), unZip(zippedFile));
+        assertArrayEquals(plain.toByteArray(), parallel);
+    }
+
+    @Test
+    void parallelGZIPInputStreamLargeMember_FallsBackToSequentialReading(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(5000);
+        generator.setMemberLines(2000);
+        Path zippedFile = directory.resolve("access.log.gz");
+        generator.write(zippedFile);
+
+        byte[] parallel;
+        try (FileChannel channel = FileChannel.open(zippedFile);
+             InputStream inputStream = new ParallelGZIPInputStream(channel, 4, 65536)) {
+            parallel = inputStream.readAllBytes();
+        }
+
+        assertArrayEquals(unZip(zippedFile), parallel);
+    }
+
+    @Test
+    void parallelGZIPInputStreamSingleMember_FallsBackAfterProbe(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(20000);
+        generator.setMemberLines(0);
+        Path zippedFile = directory.resolve("access.log.gz");
+        generator.write(zippedFile);
+
+        byte[] parallel;
+        try (FileChannel channel = FileChannel.open(zippedFile);
+             InputStream inputStream = new ParallelGZIPInputStream(channel, 4, 65536)) {
+            // The member is compressed into more bytes than a 64 KB member could take
+            assertTrue(channel.size() > 2 * 65536 + 65536 / 1024);
+            parallel = inputStream.readAllBytes();
+        }
+
+        assertArrayEquals(unZip(zippedFile), parallel);
+    }
+
+    @Test
+    void parseFileMultipleMembersParallel_MatchesSequentialParsing(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(5000);
+        generator.setMalformedRatio(0.05);
+        generator.setMemberLines(300);
+        Path zippedFile = directory.resolve("access.log.gz");
+        generator.write(zippedFile);
+        LogParser parallelParser = new LogParser();
+        ReflectionTestUtils.setField(parallelParser, "parallelism", 4);
+        List<RequestEntity> sequential = new ArrayList<>();
+        List<RequestEntity> parallel = new ArrayList<>();
+
+        long sequentialLines = new LogParser().parseFile(zippedFile, sequential::add);
+        long parallelLines = parallelParser.parseFile(zippedFile, parallel::add);
+
+        assertEquals(5000, sequentialLines);
+        assertEquals(sequentialLines, parallelLines);
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getHost(), parallel.get(i).getHost());
+            assertEquals(sequential.get(i).getResource(), parallel.get(i).getResource());
+            assertEquals(sequential.get(i).getResponseCode(), parallel.get(i).getResponseCode());
+        }
+    }
+
+    @Test
+    void parseFileConcurrentFiles_SharesParallelism(@TempDir Path directory) throws IOException {
+        LogGenerator generator = new LogGenerator();
+        generator.setLines(5000);
+        generator.setMemberLines(300);
+        Path zippedFile = directory.resolve("access.log.gz");
+        generator.write(zippedFile);
+        LogParser parallelParser = new LogParser();
+        ReflectionTestUtils.setField(parallelParser, "parallelism", 4);
+        List<RequestEntity> sequential = new ArrayList<>();
+        List<RequestEntity> shared = new ArrayList<>();
+        Set<String> threads = new HashSet<>();
+
+        new LogParser().parseFile(zippedFile, sequential::add);
+        long sharedLines = parallelParser.parseFile(zippedFile, 0, 2, req -> {
+            shared.add(req);
+            if (shared.size() % 100 == 0) {
+                Thread.getAllStackTraces().keySet().stream().map(Thread::getName)
+                        .filter(name -> name.startsWith("log-parser-") || name.startsWith("log-inflater-"))
+                        .forEach(threads::add);
+            }
+        });
+
+        assertEquals(5000, sharedLines);
+        assertFalse(threads.isEmpty());
+        // Two files in flight get 2 of the 4 threads each
+        assertTrue(threads.stream().allMatch(name -> name.endsWith("-1") || name.endsWith("-2")), threads::toString);
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getHost(), shared.get(i).getHost());
+            assertEquals(sequential.get(i).getResource(), shared.get(i).getResource());
+        }
+    }
+
+    private static byte[] unZip(Path zippedFile) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(zippedFile))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Zips the given bytes into BGZF blocks of at most blockSize unzipped bytes each, followed by the empty EOF block
+     */
+    private static byte[] bgzf(byte[] input, int blockSize) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int off = 0; off <= input.length; off += blockSize) {
+            int length = off == input.length ? 0 : Math.min(blockSize, input.length - off);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            deflater.setInput(input, off, length);
+            deflater.finish();
+            byte[] compressed = new byte[length + 1024];
+            int compressedLength = deflater.deflate(compressed);
+            deflater.end();
+            CRC32 crc = new CRC32();
+            crc.update(input, off, length);
+
+            ByteBuffer block = ByteBuffer.allocate(18 + compressedLength + 8).order(ByteOrder.LITTLE_ENDIAN);
+            block.put(new byte[]{0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff});
+            block.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+            block.putShort((short) (block.capacity() - 1));
+            block.put(compressed, 0, compressedLength);
+            block.putInt((int) crc.getValue()).putInt(length);
+            output.writeBytes(block.array());
+            if (length == 0) {
+                break;
+            }
+        }
+        return output.toByteArray();
     }
 }
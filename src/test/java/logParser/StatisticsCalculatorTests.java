@@ -2,16 +2,37 @@ package logParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import logParser.dataModel.RequestEntity;
+import logParser.domainModel.HostRequests;
+import logParser.domainModel.RequestQuery;
+import logParser.domainModel.RequestTimeline;
 import logParser.domainModel.StatisticsContainer;
+import logParser.util.BucketRing;
+import logParser.util.HyperLogLog;
+import logParser.util.LogDictionary;
+import logParser.util.LongHistogram;
+import logParser.util.ObjectIntCounter;
+import logParser.util.RequestColumns;
+import logParser.util.RequestQueryScanner;
+import logParser.util.SpaceSavingCounter;
+import logParser.util.StatisticsAggregator;
 import logParser.util.StatisticsCalculator;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @SpringBootTest
 public class StatisticsCalculatorTests {
@@ -22,7 +43,7 @@ public class StatisticsCalculatorTests {
         model.setHost("in24.inetnebr.com");
         model.setHttpVerb("GET");
         model.setResource("/shuttle/missions/sts-68/news/sts-68-mcc-05.txt");
-        model.setResponseCode("200");
+        model.setResponseCode(200);
         input.add(model);
         StatisticsContainer output = StatisticsCalculator.createBaseStatisticsContainer(input);
 
@@ -41,7 +62,7 @@ public class StatisticsCalculatorTests {
         model.setHost("js002.cc.utsunomiya-u.ac.jp");
         model.setHttpVerb("GET");
         model.setResource("/shuttle/resources/orbiters/discovery.gif");
-        model.setResponseCode("404");
+        model.setResponseCode(404);
         input.add(model);
         StatisticsContainer output = StatisticsCalculator.createBaseStatisticsContainer(input);
 
@@ -106,26 +127,26 @@ public class StatisticsCalculatorTests {
     @Test
     void getAllRequestsForTopHostsCompleteInput_ReturnsTop10() {
         List<RequestEntity> input = new ArrayList<>();
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-71/movies/sts-71-rollover.mpg", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("uplherc.upl.com", "GET", "/", "200"));
-        input.add(new RequestEntity("uplherc.upl.com", "GET", "/images/MOSAIC-logosmall.gif", "200"));
-        input.add(new RequestEntity("van15422.direct.ca", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("van15422.direct.ca", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("piweba1y.prodigy.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("ad11-061.compuserve.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("139.230.35.135", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("pm9.j51.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("piweba4y.prodigy.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("www-b5.proxy.aol.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("ns2.sharp.co.jp", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-71/movies/sts-71-rollover.mpg", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("uplherc.upl.com", "GET", "/", 200));
+        input.add(new RequestEntity("uplherc.upl.com", "GET", "/images/MOSAIC-logosmall.gif", 200));
+        input.add(new RequestEntity("van15422.direct.ca", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("van15422.direct.ca", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("piweba1y.prodigy.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("ad11-061.compuserve.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("139.230.35.135", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("pm9.j51.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("piweba4y.prodigy.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("www-b5.proxy.aol.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("ns2.sharp.co.jp", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
         StatisticsContainer statisticsContainer = StatisticsCalculator.createBaseStatisticsContainer(input);
-        statisticsContainer.setHostsSortedByCallFrequency(StatisticsCalculator.sortHostsByRequestFrequency(statisticsContainer.getRequestsPerHost()));
-        LinkedHashMap<String, List<String>> output = StatisticsCalculator.getAllRequestsForTopHosts(statisticsContainer.getHostsSortedByCallFrequency());
+        LinkedHashMap<String, HostRequests> hostsSortedByCallFrequency = StatisticsCalculator.sortHostsByRequestFrequency(statisticsContainer.getRequestsPerHost());
+        LinkedHashMap<String, HostRequests> output = StatisticsCalculator.getAllRequestsForTopHosts(hostsSortedByCallFrequency);
 
         assertThat(output.size() == 10);
     }
@@ -133,22 +154,22 @@ public class StatisticsCalculatorTests {
     @Test
     void getAllRequestsForTopHostsIncompleteInput_ReturnsFewerThan10Entries() {
         List<RequestEntity> input = new ArrayList<>();
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-71/movies/sts-71-rollover.mpg", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", "200"));
-        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", "200"));
-        input.add(new RequestEntity("uplherc.upl.com", "GET", "/", "200"));
-        input.add(new RequestEntity("uplherc.upl.com", "GET", "/images/MOSAIC-logosmall.gif", "200"));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-71/movies/sts-71-rollover.mpg", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/shuttle/missions/sts-68/news/sts-68-mcc-05.txt", 200));
+        input.add(new RequestEntity("uplherc.upl.com", "GET", "/", 200));
+        input.add(new RequestEntity("uplherc.upl.com", "GET", "/images/MOSAIC-logosmall.gif", 200));
         StatisticsContainer statisticsContainer = StatisticsCalculator.createBaseStatisticsContainer(input);
-        statisticsContainer.setHostsSortedByCallFrequency(StatisticsCalculator.sortHostsByRequestFrequency(statisticsContainer.getRequestsPerHost()));
-        LinkedHashMap<String, List<String>> output = StatisticsCalculator.getAllRequestsForTopHosts(statisticsContainer.getHostsSortedByCallFrequency());
+        LinkedHashMap<String, HostRequests> hostsSortedByCallFrequency = StatisticsCalculator.sortHostsByRequestFrequency(statisticsContainer.getRequestsPerHost());
+        LinkedHashMap<String, HostRequests> output = StatisticsCalculator.getAllRequestsForTopHosts(hostsSortedByCallFrequency);
 
         assertThat(output.size() == 2);
     }
 
     @Test
     void getAllRequestsForTopHostsInvalidInput_ReturnsEmptyList() {
-        LinkedHashMap<String, List<String>> output = StatisticsCalculator.getAllRequestsForTopHosts(new LinkedHashMap<>());
+        LinkedHashMap<String, HostRequests> output = StatisticsCalculator.getAllRequestsForTopHosts(new LinkedHashMap<>());
 
         assertThat(output.size() == 0);
     }
@@ -159,4 +180,615 @@ public class StatisticsCalculatorTests {
 
         assertThat(thrown).isInstanceOf(NullPointerException.class);
     }
+
+    @Test
+    void addRequestIncremental_MatchesBaseStatisticsContainer() {
+        List<RequestEntity> input = new ArrayList<>();
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/images/MOSAIC-logosmall.gif", 404));
+        input.add(new RequestEntity("uplherc.upl.com", "GET", "/", 304));
+        StatisticsContainer expected = StatisticsCalculator.createBaseStatisticsContainer(input);
+        StatisticsContainer output = new StatisticsContainer();
+        for (RequestEntity request : input) {
+            StatisticsCalculator.addRequest(output, request);
+        }
+        StatisticsCalculator.calculateRankings(output);
+
+        assertEquals(expected.getAllRequests(), output.getAllRequests());
+        assertEquals(expected.getSuccessfulRequests(), output.getSuccessfulRequests());
+        assertEquals(expected.getResourceCallCount(), output.getResourceCallCount());
+        assertEquals(expected.getResourceFailCount(), output.getResourceFailCount());
+        assertEquals(expected.getRequestsPerHost().keySet(), output.getRequestsPerHost().keySet());
+        assertEquals(2, output.getRequestsPerHost().get("in24.inetnebr.com").getTotalRequests());
+        assertEquals(2, output.getRequestsPerHost().get("in24.inetnebr.com").getResourceCallCount().size());
+        assertEquals("/images/MOSAIC-logosmall.gif", output.getTop10FailedResources()[0]);
+        assertEquals("in24.inetnebr.com", output.getTop10HostResources().keySet().iterator().next());
+    }
+
+    @Test
+    void getFrequentRequestsPerHost_CountsTop5ResourcesPerHost() {
+        List<RequestEntity> input = new ArrayList<>();
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/images/ksclogo-medium.gif", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/images/ksclogo-medium.gif", 200));
+        for (int i = 0; i < 5; i++) {
+            input.add(new RequestEntity("in24.inetnebr.com", "GET", "/history/apollo/" + i, 200));
+        }
+        input.add(new RequestEntity("uplherc.upl.com", "GET", "/", 304));
+        StatisticsContainer statisticsContainer = StatisticsCalculator.createBaseStatisticsContainer(input);
+        StatisticsCalculator.calculateRankings(statisticsContainer);
+
+        LinkedHashMap<String, Integer> output = statisticsContainer.getTop10HostRequests().get("in24.inetnebr.com");
+
+        assertEquals(10, statisticsContainer.getRequestsPerHost().get("in24.inetnebr.com").getTotalRequests());
+        assertEquals(5, output.size());
+        assertEquals(List.of("/", "/images/ksclogo-medium.gif"), output.keySet().stream().limit(2).toList());
+        assertEquals(3, output.get("/"));
+        assertEquals(2, output.get("/images/ksclogo-medium.gif"));
+    }
+
+    @Test
+    void getTopCounts_MatchesFullSort() {
+        HashMap<String, Integer> input = new HashMap<>();
+        ObjectIntCounter<String> counter = new ObjectIntCounter<>();
+        for (int i = 0; i < 200; i++) {
+            input.put("/resource/" + i, (i * 37) % 101);
+            counter.add("/resource/" + i, (i * 37) % 101);
+        }
+        LinkedHashMap<String, Integer> sorted = StatisticsCalculator.sortResourcesByFrequency(input);
+
+        LinkedHashMap<String, Integer> output = StatisticsCalculator.getMostRequestedResources(counter, 10);
+
+        assertEquals(10, output.size());
+        assertEquals(sorted.values().stream().limit(10).toList(), new ArrayList<>(output.values()));
+        output.forEach((resource, count) -> assertEquals(input.get(resource), count));
+    }
+
+    @Test
+    void getTopEntries_MatchesFullSort() {
+        HashMap<String, Integer> input = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            input.put("/resource/" + i, (i * 37) % 101);
+        }
+        LinkedHashMap<String, Integer> sorted = StatisticsCalculator.sortResourcesByFrequency(input);
+
+        LinkedHashMap<String, Integer> output = StatisticsCalculator.getTopEntries(input, 10, Comparator.<Integer>naturalOrder());
+
+        assertEquals(sorted.entrySet().stream().limit(10).toList(), output.entrySet().stream().toList());
+    }
+
+    @Test
+    void getTopCountsLimitOutOfRange_ReturnsAllOrNothing() {
+        ObjectIntCounter<String> input = new ObjectIntCounter<>();
+        input.add("/images/MOSAIC-logosmall.gif", 3);
+        input.add("/images/ksclogo-medium.gif", 1);
+        input.add("/", 8);
+
+        assertEquals(List.of("/", "/images/MOSAIC-logosmall.gif", "/images/ksclogo-medium.gif"),
+                new ArrayList<>(StatisticsCalculator.getMostRequestedResources(input, 100).keySet()));
+        assertEquals(0, StatisticsCalculator.getMostRequestedResources(input, 0).size());
+        assertEquals(0, StatisticsCalculator.getMostRequestedResources(input, -1).size());
+    }
+
+    @Test
+    void objectIntCounterManyKeys_MatchesHashMap() {
+        ObjectIntCounter<String> counter = new ObjectIntCounter<>();
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            String key = i % 977 == 0 ? null : "/resource/" + (i % 1500);
+            counter.increment(key);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        assertEquals(expected.size(), counter.size());
+        assertEquals(expected, counter.asMap());
+        assertEquals(expected.get(null), counter.get(null));
+        assertEquals(0, counter.get("/missing"));
+    }
+
+    @Test
+    void spaceSavingCounterSkewedInput_KeepsHeavyHittersWithinErrorBound() {
+        SpaceSavingCounter<String> counter = new SpaceSavingCounter<>(100);
+        HashMap<String, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        int total = 100000;
+        for (int i = 0; i < total; i++) {
+            // Zipf-like: resource k is requested about 1 / (k + 1) as often as resource 0
+            String key = "/resource/" + (int) Math.floor(Math.exp(random.nextDouble() * Math.log(5000)) - 1);
+            counter.increment(key);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        assertEquals(100, counter.size());
+        assertThat(counter.getMaxError()).isLessThanOrEqualTo(total / 100);
+        counter.forEach((key, count) -> {
+            assertThat(count).isGreaterThanOrEqualTo(expected.get(key));
+            assertThat(count - counter.getError(key)).isLessThanOrEqualTo(expected.get(key));
+            assertThat(count - expected.get(key)).isLessThanOrEqualTo(counter.getMaxError());
+        });
+        expected.forEach((key, count) -> {
+            if (count > total / 100) {
+                assertThat(counter.get(key)).isPositive();
+            }
+        });
+        assertEquals(StatisticsCalculator.getTopEntries(expected, 10, Comparator.<Integer>naturalOrder()).keySet(),
+                StatisticsCalculator.getMostRequestedResources(counter, 10).keySet());
+    }
+
+    @Test
+    void approximateAggregatorSkewedInput_MatchesExactTopResourcesAndHosts() {
+        StatisticsAggregator exact = new StatisticsAggregator();
+        StatisticsAggregator approximate = new StatisticsAggregator();
+        ReflectionTestUtils.setField(approximate, "mode", StatisticsAggregator.Mode.APPROXIMATE);
+        ReflectionTestUtils.setField(approximate, "capacity", 200);
+        ReflectionTestUtils.setField(approximate, "hostCapacity", 20);
+        for (StatisticsAggregator aggregator : List.of(exact, approximate)) {
+            ReflectionTestUtils.setField(aggregator, "dictionary", new LogDictionary());
+            aggregator.initialize();
+        }
+        Random random = new Random(7);
+        for (int batch = 0; batch < 20; batch++) {
+            StatisticsContainer partial = approximate.createContainer();
+            for (int i = 0; i < 5000; i++) {
+                int host = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(3000)) - 1);
+                int resource = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(3000)) - 1);
+                RequestEntity request = new RequestEntity("host" + host + ".com", "GET", "/r" + resource, resource % 7 == 0 ? 404 : 200);
+                exact.accept(request);
+                StatisticsCalculator.addRequest(partial, request);
+            }
+            approximate.merge(partial);
+        }
+        exact.publish();
+        approximate.publish();
+
+        StatisticsContainer expected = exact.getStatistics();
+        StatisticsContainer output = approximate.getStatistics();
+        assertTrue(output.isApproximate());
+        assertEquals(expected.getAllRequests(), output.getAllRequests());
+        assertThat(output.getRequestsPerHost().size()).isLessThanOrEqualTo(200);
+        assertThat(output.getResourceCallCounter().size()).isLessThanOrEqualTo(200);
+        assertEquals(expected.getTop10Resources().keySet(), output.getTop10Resources().keySet());
+        assertEquals(expected.getTop10HostResources().keySet(), output.getTop10HostResources().keySet());
+        assertEquals(Set.of(expected.getTop10FailedResources()), Set.of(output.getTop10FailedResources()));
+    }
+
+    @Test
+    void exactContainerManyResources_KeepsSketchesOfTopResourcesOnly() {
+        List<RequestEntity> input = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            // Resource r0 is requested every other time, r1 every fourth time, and so on, and 1000 resources only once
+            int resource = i < 1000 ? 1000 + i : Integer.numberOfTrailingZeros(i);
+            input.add(new RequestEntity("host" + (i % 300) + ".com", "GET", "/r" + resource, 200));
+        }
+        StatisticsContainer expected = StatisticsCalculator.createBaseStatisticsContainer(input);
+        StatisticsContainer output = new StatisticsContainer(20);
+        input.forEach(request -> StatisticsCalculator.addRequest(output, request));
+        RequestColumns columns = new RequestColumns();
+        columns.appendAll(input);
+        StatisticsContainer scanned = StatisticsCalculator.createBaseStatisticsContainer(columns, new StatisticsContainer(20));
+
+        for (StatisticsContainer bounded : List.of(output, scanned)) {
+            assertFalse(bounded.isApproximate());
+            assertEquals(expected.getResourceCallCount(), bounded.getResourceCallCount());
+            assertThat(bounded.getHostsPerResource().size()).isLessThanOrEqualTo(20);
+            for (String resource : List.of("/r0", "/r1", "/r2", "/r3")) {
+                assertEquals(expected.getHostsOfResource(resource).estimate(), bounded.getHostsOfResource(resource).estimate());
+            }
+        }
+        assertThat(expected.getHostsPerResource().size()).isGreaterThan(1000);
+    }
+
+    @Test
+    void hyperLogLogManyValues_EstimatesWithinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog();
+        HyperLogLog odd = new HyperLogLog();
+        HyperLogLog even = new HyperLogLog();
+        for (int i = 0; i < 100000; i++) {
+            String host = "host" + i + ".com";
+            sketch.add(host);
+            // Values added again are not counted twice
+            sketch.add(host);
+            (i % 2 == 0 ? even : odd).add(host);
+        }
+        HyperLogLog merged = even.copy();
+        merged.merge(odd);
+
+        assertThat(sketch.isSparse()).isFalse();
+        // 3 standard errors of 1.6%
+        assertThat(sketch.estimate()).isBetween(95000L, 105000L);
+        assertEquals(sketch.estimate(), merged.estimate());
+        assertThat(even.estimate()).isBetween(47500L, 52500L);
+    }
+
+    @Test
+    void hyperLogLogFewValues_StaysSparseAndNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            sketch.add("/resource/" + (i % 50));
+        }
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 5000; i++) {
+            dense.add("/other/" + i);
+        }
+        HyperLogLog merged = sketch.copy();
+        merged.merge(dense);
+
+        assertThat(sketch.isSparse()).isTrue();
+        assertThat(sketch.estimate()).isBetween(49L, 51L);
+        assertEquals(0, new HyperLogLog().estimate());
+        assertThat(merged.isSparse()).isFalse();
+        assertThat(merged.estimate()).isBetween(4800L, 5300L);
+        assertThat(catchThrowable(() -> sketch.merge(new HyperLogLog(10)))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void exactContainerManyResources_KeepsHistogramsOfTopResourcesOnly() {
+        List<RequestEntity> input = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int resource = i < 1000 ? 1000 + i : Integer.numberOfTrailingZeros(i);
+            input.add(new RequestEntity("host" + (i % 300) + ".com", "GET", "/r" + resource, 200));
+            input.getLast().setBytes((long) i);
+        }
+        StatisticsContainer expected = StatisticsCalculator.createBaseStatisticsContainer(input);
+        StatisticsContainer output = new StatisticsContainer(20);
+        input.forEach(request -> StatisticsCalculator.addRequest(output, request));
+        RequestColumns columns = new RequestColumns();
+        columns.appendAll(input);
+        StatisticsContainer scanned = StatisticsCalculator.createBaseStatisticsContainer(columns, new StatisticsContainer(20));
+
+        for (StatisticsContainer bounded : List.of(output, scanned)) {
+            assertThat(bounded.getResponsesPerResource().size()).isLessThanOrEqualTo(20);
+            assertEquals(expected.getResponses().getBytes().getCount(), bounded.getResponses().getBytes().getCount());
+            for (String resource : List.of("/r0", "/r1", "/r2", "/r3")) {
+                LongHistogram bytes = bounded.getResponsesOfResource(resource).getBytes();
+                assertEquals(expected.getResponsesOfResource(resource).getBytes().getCount(), bytes.getCount());
+                assertEquals(expected.getResponsesOfResource(resource).getBytes().getValueAtPercentile(90),
+                        bytes.getValueAtPercentile(90));
+            }
+        }
+        assertThat(expected.getResponsesPerResource().size()).isGreaterThan(1000);
+    }
+
+    @Test
+    void longHistogramSkewedValues_ReportsPercentilesWithinBucketError() {
+        LongHistogram histogram = new LongHistogram();
+        LongHistogram low = new LongHistogram();
+        LongHistogram high = new LongHistogram();
+        Random random = new Random(3);
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            // Spread over 8 powers of 10, like response sizes from a few bytes to megabytes
+            values[i] = (long) Math.pow(10, random.nextDouble() * 8);
+            histogram.record(values[i]);
+            (values[i] < 10000 ? low : high).record(values[i]);
+        }
+        LongHistogram merged = new LongHistogram();
+        merged.merge(high);
+        merged.merge(low);
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            assertThat(histogram.getValueAtPercentile(percentile)).isBetween(expected, expected + expected / 32);
+            assertEquals(histogram.getValueAtPercentile(percentile), merged.getValueAtPercentile(percentile));
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+        assertEquals(values.length, merged.getCount());
+        assertEquals(-1, new LongHistogram().getValueAtPercentile(50));
+        assertThat(catchThrowable(() -> histogram.record(-1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void longHistogramExtremeValues_CountsEveryValue() {
+        LongHistogram histogram = new LongHistogram();
+        histogram.record(0);
+        histogram.record(31);
+        histogram.record(32, 2);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(5, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(31, histogram.getValueAtPercentile(40));
+        assertEquals(32, histogram.getValueAtPercentile(80));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void createBaseStatisticsContainerMixedResponseCodes_CountsStatusClasses() {
+        List<RequestEntity> input = new ArrayList<>();
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 304));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 302));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/missing.gif", 404));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/cgi-bin/imagemap", 500));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 999));
+        input.add(new RequestEntity());
+        StatisticsContainer output = StatisticsCalculator.createBaseStatisticsContainer(input);
+
+        assertArrayEquals(new long[]{2, 0, 1, 2, 1, 1}, output.getStatusClassCount());
+        assertEquals(3, output.getSuccessfulRequests());
+    }
+
+    @Test
+    void createBaseStatisticsContainerFromColumns_MatchesRequestList() {
+        long start = Instant.parse("1995-08-01T04:00:00Z").toEpochMilli();
+        String[] responseCodes = {"200", "304", "404", "500", "302", "999", null};
+        List<RequestEntity> input = new ArrayList<>();
+        // More than one chunk
+        for (int i = 0; i < RequestColumns.CHUNK_SIZE + 1000; i++) {
+            String responseCode = responseCodes[i % responseCodes.length];
+            input.add(new RequestEntity(i % 97 == 0 ? null : "host" + (i % 131) + ".com", i % 5 == 0 ? "POST" : "GET",
+                    "/resource/" + (i % 211), responseCode == null ? null : Integer.valueOf(responseCode),
+                    i % 11 == 0 ? null : start + i * 1000L));
+            input.getLast().setBytes(i % 13 == 0 ? null : (long) (i % 211) * 1000 + i % 7);
+            input.getLast().setResponseTime(i % 3 == 0 ? null : (long) i);
+        }
+        StatisticsContainer expected = StatisticsCalculator.createBaseStatisticsContainer(input);
+        RequestColumns columns = new RequestColumns();
+        columns.appendAll(input.subList(0, 1000));
+        input.subList(1000, input.size()).forEach(columns::append);
+
+        StatisticsContainer output = StatisticsCalculator.createBaseStatisticsContainer(columns);
+
+        assertEquals(input.size(), columns.size());
+        assertEquals(expected.getAllRequests(), output.getAllRequests());
+        assertEquals(expected.getSuccessfulRequests(), output.getSuccessfulRequests());
+        assertArrayEquals(expected.getStatusClassCount(), output.getStatusClassCount());
+        assertEquals(expected.getResourceCallCount(), output.getResourceCallCount());
+        assertEquals(expected.getResourceFailCount(), output.getResourceFailCount());
+        assertEquals(expected.getRequestsPerHost().keySet(), output.getRequestsPerHost().keySet());
+        for (Map.Entry<String, HostRequests> entry : expected.getRequestsPerHost().entrySet()) {
+            HostRequests hostRequests = output.getRequestsPerHost().get(entry.getKey());
+            assertEquals(entry.getValue().getTotalRequests(), hostRequests.getTotalRequests());
+            assertEquals(entry.getValue().getResourceCallCount(), hostRequests.getResourceCallCount());
+            assertEquals(entry.getValue().getUniqueResources().estimate(), hostRequests.getUniqueResources().estimate());
+        }
+        assertEquals(expected.getUniqueHosts().estimate(), output.getUniqueHosts().estimate());
+        assertEquals(expected.getResponsesPerResource().keySet(), output.getResponsesPerResource().keySet());
+        expected.getResponsesPerResource().forEach((resource, responses) -> {
+            assertEquals(responses.getBytes().getCount(), output.getResponsesPerResource().get(resource).getBytes().getCount());
+            assertEquals(responses.getBytes().getValueAtPercentile(90),
+                    output.getResponsesPerResource().get(resource).getBytes().getValueAtPercentile(90));
+        });
+        assertEquals(expected.getResponses().getBytes().getValueAtPercentile(50), output.getResponses().getBytes().getValueAtPercentile(50));
+        assertEquals(expected.getResponses().getResponseTime().getMax(), output.getResponses().getResponseTime().getMax());
+        assertEquals(expected.getHostsPerResource().keySet(), output.getHostsPerResource().keySet());
+        expected.getHostsPerResource().forEach((resource, hosts) ->
+                assertEquals(hosts.estimate(), output.getHostsPerResource().get(resource).estimate()));
+        assertArrayEquals(expected.getTimeline().getStatusClassCount(Long.MIN_VALUE, Long.MAX_VALUE),
+                output.getTimeline().getStatusClassCount(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void createBaseStatisticsContainerFromColumnsApproximate_KeepsTopResourcesAndHosts() {
+        StatisticsAggregator approximate = new StatisticsAggregator();
+        ReflectionTestUtils.setField(approximate, "mode", StatisticsAggregator.Mode.APPROXIMATE);
+        ReflectionTestUtils.setField(approximate, "capacity", 50);
+        ReflectionTestUtils.setField(approximate, "hostCapacity", 5);
+        ReflectionTestUtils.setField(approximate, "dictionary", new LogDictionary());
+        approximate.initialize();
+        Random random = new Random(11);
+        List<RequestEntity> input = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int host = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(1000)) - 1);
+            int resource = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(1000)) - 1);
+            input.add(new RequestEntity("host" + host + ".com", "GET", "/r" + resource, resource % 7 == 0 ? 404 : 200));
+            input.getLast().setBytes((long) resource);
+        }
+        RequestColumns columns = new RequestColumns();
+        columns.appendAll(input);
+        StatisticsContainer expected = StatisticsCalculator.createBaseStatisticsContainer(columns);
+
+        StatisticsContainer output = StatisticsCalculator.createBaseStatisticsContainer(columns, approximate.createContainer());
+        StatisticsCalculator.calculateRankings(expected);
+        StatisticsCalculator.calculateRankings(output);
+
+        assertTrue(output.isApproximate());
+        assertEquals(expected.getAllRequests(), output.getAllRequests());
+        assertThat(output.getResourceCallCounter().size()).isLessThanOrEqualTo(50);
+        assertThat(output.getRequestsPerHost().size()).isLessThanOrEqualTo(50);
+        assertThat(output.getHostsPerResource().size()).isLessThanOrEqualTo(50);
+        assertThat(output.getResponsesPerResource().size()).isLessThanOrEqualTo(50);
+        output.getRequestsPerHost().values().forEach(hostRequests ->
+                assertThat(hostRequests.getResourceCallCounter().size()).isLessThanOrEqualTo(5));
+        assertEquals(expected.getTop10Resources(), output.getTop10Resources());
+        assertEquals(expected.getTop10HostResources().keySet(), output.getTop10HostResources().keySet());
+    }
+
+    @Test
+    void createBaseStatisticsContainerFromColumnsBoundedDetails_KeepsDetailsOfTopResources() {
+        StatisticsAggregator approximate = new StatisticsAggregator();
+        ReflectionTestUtils.setField(approximate, "mode", StatisticsAggregator.Mode.APPROXIMATE);
+        ReflectionTestUtils.setField(approximate, "capacity", 20);
+        ReflectionTestUtils.setField(approximate, "hostCapacity", 5);
+        ReflectionTestUtils.setField(approximate, "dictionary", new LogDictionary());
+        approximate.initialize();
+        Random random = new Random(13);
+        List<RequestEntity> input = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int host = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(1000)) - 1);
+            int resource = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(1000)) - 1);
+            input.add(new RequestEntity("host" + host + ".com", "GET", "/r" + resource, 200));
+            input.getLast().setBytes((long) resource * 100 + host);
+        }
+        RequestColumns columns = new RequestColumns();
+        columns.appendAll(input);
+        StatisticsContainer expected = StatisticsCalculator.createBaseStatisticsContainer(columns);
+        StatisticsCalculator.calculateRankings(expected);
+
+        for (StatisticsContainer output : List.of(
+                StatisticsCalculator.createBaseStatisticsContainer(columns, new StatisticsContainer(20)),
+                StatisticsCalculator.createBaseStatisticsContainer(columns, approximate.createContainer()))) {
+            assertThat(output.getResponsesPerResource().size()).isLessThanOrEqualTo(20);
+            assertThat(output.getHostsPerResource().size()).isLessThanOrEqualTo(20);
+            // The overall histograms count every response, including those of the resources without details
+            assertEquals(expected.getResponses().getBytes().getCount(), output.getResponses().getBytes().getCount());
+            assertEquals(expected.getResponses().getBytes().getMax(), output.getResponses().getBytes().getMax());
+            // Resources requested more than 20000 / 20 times are always kept, but may be replaced early in the scan
+            expected.getTop10Resources().entrySet().stream().filter(entry -> entry.getValue() > 1000).forEach(entry -> {
+                String resource = entry.getKey();
+                long responses = expected.getResponsesPerResource().get(resource).getBytes().getCount();
+                assertThat(output.getResponsesPerResource().get(resource).getBytes().getCount())
+                        .isLessThanOrEqualTo(responses).isGreaterThan(responses * 95 / 100);
+                long hosts = expected.getHostsPerResource().get(resource).estimate();
+                assertThat(output.getHostsPerResource().get(resource).estimate())
+                        .isLessThanOrEqualTo(hosts).isGreaterThan(hosts * 95 / 100);
+            });
+        }
+    }
+
+    @Test
+    void requestQueryScanner_MatchesFilteredRequestList() {
+        long start = Instant.parse("1995-08-01T04:00:00Z").toEpochMilli();
+        String[] hosts = {"www.nasa.gov", "ksc.nasa.gov", "in24.inetnebr.com", null};
+        List<RequestEntity> input = new ArrayList<>();
+        for (int i = 0; i < RequestColumns.CHUNK_SIZE * 2 + 1000; i++) {
+            input.add(new RequestEntity(hosts[i % hosts.length], i % 7 == 0 ? "POST" : "GET", "/shuttle/" + (i % 13),
+                    i % 19 == 0 ? null : (i % 3 == 0 ? 404 : 200), i % 23 == 0 ? null : start + i * 100L));
+        }
+        RequestColumns columns = new RequestColumns();
+        columns.appendAll(input);
+        RequestQuery query = new RequestQuery();
+        query.setHost("*.nasa.gov");
+        query.setResource("/shuttle/1");
+        query.setHttpVerb("GET");
+        query.setMinResponseCode(400);
+        query.setMaxResponseCode(499);
+        query.setFrom(start + 1_000_000);
+        query.setTo(start + 10_000_000);
+        query.setLimit(3);
+
+        RequestQueryScanner.Result result = RequestQueryScanner.execute(columns, query);
+
+        Map<String, Integer> expected = new HashMap<>();
+        for (RequestEntity request : input) {
+            if (request.getHost() != null && request.getHost().endsWith(".nasa.gov")
+                    && request.getResource().startsWith("/shuttle/1") && request.getHttpVerb().equals("GET")
+                    && request.getResponseCode() != null && request.getResponseCode() == 404
+                    && request.getTimestamp() != null && request.getTimestamp() >= start + 1_000_000
+                    && request.getTimestamp() < start + 10_000_000) {
+                expected.merge(request.getResource(), 1, Integer::sum);
+            }
+        }
+        assertEquals(expected.values().stream().mapToInt(Integer::intValue).sum(), result.matched());
+        assertEquals(StatisticsCalculator.sortResourcesByFrequency(expected).entrySet().stream().limit(3).toList(),
+                List.copyOf(result.groups().entrySet()));
+
+        query = new RequestQuery();
+        query.setGroupBy(RequestQuery.GroupBy.RESPONSE_CODE);
+        query.setHttpVerb("DELETE");
+        assertEquals(0, RequestQueryScanner.execute(columns, query).matched());
+        query.setHttpVerb(null);
+        result = RequestQueryScanner.execute(columns, query);
+        assertEquals(input.size(), result.matched());
+        assertEquals(Set.of("200", "404", "null"), result.groups().keySet().stream().map(String::valueOf).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void requestTimeline_CountsRequestsPerPeriod() {
+        long start = Instant.parse("1995-08-01T04:00:00Z").toEpochMilli();
+        List<RequestEntity> input = new ArrayList<>();
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200, start + 1_000));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 404, start + 59_000));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200, start + 61_000));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 500, start + 3_600_000));
+        input.add(new RequestEntity("in24.inetnebr.com", "GET", "/", 200, null));
+        StatisticsContainer output = StatisticsCalculator.createBaseStatisticsContainer(input);
+        RequestTimeline timeline = output.getTimeline();
+
+        assertArrayEquals(new long[]{0, 0, 1, 0, 1, 0}, timeline.getStatusClassCount(start, start + 60_000));
+        assertArrayEquals(new long[]{0, 0, 2, 0, 1, 1}, timeline.getStatusClassCount(start, Long.MAX_VALUE));
+        List<Long> hours = new ArrayList<>();
+        timeline.forEach(RequestTimeline.Interval.HOUR, Long.MIN_VALUE, Long.MAX_VALUE, (bucket, _) -> hours.add(bucket));
+        assertEquals(List.of(start, start + 3_600_000), hours);
+        assertEquals(5, output.getAllRequests());
+    }
+
+    @Test
+    void bucketRingOlderThanCapacity_DropsOldestBuckets() {
+        BucketRing ring = new BucketRing(10, 3, 1);
+        ring.add(5, 0, 1);
+        ring.add(15, 0, 1);
+        ring.add(25, 0, 1);
+        ring.add(35, 0, 1);
+        boolean added = ring.add(5, 0, 1);
+        ring.add(12, 0, 1);
+
+        assertEquals(false, added);
+        assertEquals(10, ring.getOldest());
+        assertArrayEquals(new long[]{4}, ring.sum(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertArrayEquals(new long[]{2}, ring.sum(0, 20));
+
+        BucketRing merged = new BucketRing(10, 3, 1);
+        merged.add(45, 0, 1);
+        merged.addAll(ring);
+        assertEquals(20, merged.getOldest());
+        assertArrayEquals(new long[]{3}, merged.sum(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void publishUnchangedStatistics_KeepsSnapshotAndVersion() {
+        StatisticsAggregator aggregator = new StatisticsAggregator();
+        ReflectionTestUtils.setField(aggregator, "dictionary", new LogDictionary());
+        aggregator.accept(new RequestEntity("in24.inetnebr.com", "GET", "/", 200));
+        aggregator.publish();
+        StatisticsContainer first = aggregator.getStatistics();
+        aggregator.publish();
+        aggregator.publishIfDue();
+        StatisticsContainer unchanged = aggregator.getStatistics();
+        aggregator.accept(new RequestEntity("in24.inetnebr.com", "GET", "/", 404));
+        // The interval hasn't passed since the last publish
+        aggregator.publishIfDue();
+        StatisticsContainer coalesced = aggregator.getStatistics();
+        aggregator.publish();
+
+        assertSame(first, unchanged);
+        assertSame(first, coalesced);
+        assertEquals(1, first.getVersion());
+        assertEquals(2, aggregator.getStatistics().getVersion());
+        assertEquals(2, aggregator.getStatistics().getAllRequests());
+    }
+
+    @Test
+    void publishWhileMerging_ReadersSeeConsistentUnchangingSnapshots() throws InterruptedException {
+        StatisticsAggregator aggregator = new StatisticsAggregator();
+        ReflectionTestUtils.setField(aggregator, "dictionary", new LogDictionary());
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int batch = 0; batch < 200; batch++) {
+                List<RequestEntity> input = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    input.add(new RequestEntity("host" + (i % 7) + ".com", "GET", "/r" + (batch % 13), i % 5 == 0 ? 404 : 200));
+                }
+                aggregator.merge(StatisticsCalculator.createBaseStatisticsContainer(input));
+                aggregator.publish();
+            }
+            done.set(true);
+        });
+
+        int reads = 0;
+        while (!done.get() || reads == 0) {
+            StatisticsContainer data = aggregator.getStatistics();
+            if (data == null) {
+                continue;
+            }
+            long allRequests = data.getAllRequests();
+            int hostRequests = data.getRequestsPerHost().values().stream().mapToInt(HostRequests::getTotalRequests).sum();
+            int top10Requests = data.getTop10HostResources().values().stream().mapToInt(HostRequests::getTotalRequests).sum();
+            assertEquals(allRequests, LongStream.of(data.getStatusClassCount()).sum());
+            assertEquals(allRequests, hostRequests);
+            assertEquals(allRequests, top10Requests);
+            reads++;
+        }
+        writer.join();
+
+        StatisticsContainer last = aggregator.getStatistics();
+        assertEquals(10000, last.getAllRequests());
+        assertEquals(2000, last.getResourceFailCount().values().stream().mapToInt(Integer::intValue).sum());
+        assertSame(last, aggregator.getStatistics());
+        assertTrue(reads > 0);
+    }
 }